@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Explodes the application jar and records an AppCDS archive from a training run:
+# the application starts with the AOT generated context, reaches ApplicationReadyEvent and exits.
+#
+#   scripts/cds-training-run.sh target/library-api-0.0.1-SNAPSHOT.jar
+#
+# Run automatically by `mvn package -Paot`.
+set -euo pipefail
+
+JAR="$(realpath "${1:?usage: cds-training-run.sh <application jar>}")"
+TARGET_DIR="$(dirname "$JAR")"
+EXPLODED="$TARGET_DIR/exploded"
+ARCHIVE="$TARGET_DIR/library-api.jsa"
+
+rm -rf "$EXPLODED" "$ARCHIVE"
+mkdir -p "$EXPLODED"
+(cd "$EXPLODED" && jar -xf "$JAR")
+
+java -XX:ArchiveClassesAtExit="$ARCHIVE" \
+     -Dspring.aot.enabled=true \
+     -cp "$EXPLODED/BOOT-INF/classes:$EXPLODED/BOOT-INF/lib/*" \
+     br.com.itstoony.libraryapi.LibraryApiApplication \
+     --application.startup.exit-after-ready=true \
+     --spring.boot.admin.client.enabled=false \
+     --server.port=0
+
+echo "AppCDS archive written to $ARCHIVE"
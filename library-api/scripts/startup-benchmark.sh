@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Time to first request, in milliseconds, of the packaged application started in three ways:
+#   jar      - java -jar on the executable jar
+#   exploded - exploded classpath, no AOT, no CDS
+#   aot-cds  - exploded classpath with the AOT context and the AppCDS archive
+#
+#   mvn package -Paot -DskipTests && scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-8080}"
+BASE_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$(ls "$BASE_DIR"/target/library-api-*.jar | grep -v original | head -n 1)"
+EXPLODED="$BASE_DIR/target/exploded"
+ARCHIVE="$BASE_DIR/target/library-api.jsa"
+CLASSPATH="$EXPLODED/BOOT-INF/classes:$EXPLODED/BOOT-INF/lib/*"
+MAIN=br.com.itstoony.libraryapi.LibraryApiApplication
+APP_ARGS=(--server.port="$PORT" --spring.boot.admin.client.enabled=false)
+
+if [[ ! -f "$ARCHIVE" ]]; then
+  echo "missing $ARCHIVE, build with: mvn package -Paot" >&2
+  exit 1
+fi
+
+time_to_first_request() {
+  local start pid elapsed
+  start=$(date +%s%N)
+  "$@" "${APP_ARGS[@]}" > /dev/null 2>&1 &
+  pid=$!
+  until curl -sf "http://localhost:$PORT/api/books?size=1" > /dev/null; do
+    sleep 0.01
+  done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$elapsed"
+}
+
+report() {
+  local name="$1"
+  shift
+  local samples=()
+  for _ in $(seq "$RUNS"); do
+    samples+=("$(time_to_first_request "$@")")
+  done
+  printf '%s\n' "${samples[@]}" | sort -n | awk -v name="$name" '
+    { v[NR] = $1 }
+    END { printf "%-9s min=%5d ms  median=%5d ms  max=%5d ms\n", name, v[1], v[int((NR + 1) / 2)], v[NR] }'
+}
+
+report jar      java -jar "$JAR"
+report exploded java -cp "$CLASSPATH" "$MAIN"
+report aot-cds  java -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true -cp "$CLASSPATH" "$MAIN"
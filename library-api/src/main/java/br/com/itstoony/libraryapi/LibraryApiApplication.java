@@ -1,13 +1,16 @@
 package br.com.itstoony.libraryapi;
 
+import br.com.itstoony.libraryapi.config.HibernateCacheConfig;
 import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@Import(HibernateCacheConfig.class)
 public class LibraryApiApplication {
 
 	@Bean
@@ -1,7 +1,9 @@
 package br.com.itstoony.libraryapi.api;
 
 import br.com.itstoony.libraryapi.api.exception.ApiErrors;
+import br.com.itstoony.libraryapi.config.BulkheadFullException;
 import br.com.itstoony.libraryapi.exception.BusinessException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -11,9 +13,19 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    // the same few messages (not found, already loaned...) answer most failures, so their bodies are reused
+    private static final int MAX_CACHED_ERRORS = 256;
+
+    private static final ApiErrors NO_REASON = new ApiErrors((String) null);
+
+    private final Map<String, ApiErrors> cachedErrors = new ConcurrentHashMap<>();
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -24,12 +36,46 @@ public class ApplicationControllerAdvice {
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleBusinessExceptions(BusinessException ex) {
-        return new ApiErrors(ex);
+        return errorsOf(ex.getMessage());
     }
 
     @ExceptionHandler(ResponseStatusException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<?> handleResponseStatusExceptions(ResponseStatusException ex) {
-        return new ResponseEntity<>(new ApiErrors(ex), ex.getStatusCode());
+        return new ResponseEntity<>(errorsOf(ex.getReason()), ex.getStatusCode());
+    }
+
+    /**
+     * The JDBC executor is full, see {@code ExecutorConfig}.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiErrors handleTaskRejectedExceptions(TaskRejectedException ex) {
+        return errorsOf("Too many searches in progress, try again later");
+    }
+
+    /**
+     * The connection budget of the request's workload stayed full, see {@code BulkheadConfig}; also matched as the
+     * cause of the data access exception it comes wrapped in.
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiErrors handleBulkheadFullExceptions(BulkheadFullException ex) {
+        return errorsOf("Server is busy, try again later");
+    }
+
+    private ApiErrors errorsOf(String message) {
+        if (message == null) {
+            return NO_REASON;
+        }
+
+        ApiErrors errors = cachedErrors.get(message);
+        if (errors == null) {
+            errors = new ApiErrors(message);
+            if (cachedErrors.size() < MAX_CACHED_ERRORS) {
+                cachedErrors.putIfAbsent(message, errors);
+            }
+        }
+        return errors;
     }
 }
@@ -0,0 +1,19 @@
+package br.com.itstoony.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchItemDTO {
+
+    private String key;
+
+    private boolean found;
+
+    private BookDTO book;
+}
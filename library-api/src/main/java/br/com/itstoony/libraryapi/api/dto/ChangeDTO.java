@@ -0,0 +1,36 @@
+package br.com.itstoony.libraryapi.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of the feed, with the current state of what changed: a deleted book has none (tombstone).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+
+    private Long sequence;
+
+    // BOOK or LOAN
+    private String type;
+
+    private Long id;
+
+    // CREATED, UPDATED, DELETED or RETURNED
+    private String operation;
+
+    private LocalDateTime occurredAt;
+
+    private BookDTO book;
+
+    private LoanDTO loan;
+}
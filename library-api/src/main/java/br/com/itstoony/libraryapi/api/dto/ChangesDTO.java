@@ -0,0 +1,23 @@
+package br.com.itstoony.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesDTO {
+
+    private List<ChangeDTO> changes;
+
+    // the since of the next request
+    private long next;
+
+    // more changes are already available, ask again right away
+    private boolean more;
+}
@@ -0,0 +1,31 @@
+package br.com.itstoony.libraryapi.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldDTO {
+
+    private Long id;
+
+    @NotEmpty
+    private String isbn;
+
+    @NotEmpty
+    private String customer;
+
+    @NotEmpty
+    private String email;
+
+    // 1 is the next customer to get the book
+    private Integer position;
+
+    // the book is back and reserved for this customer
+    private Boolean ready;
+}
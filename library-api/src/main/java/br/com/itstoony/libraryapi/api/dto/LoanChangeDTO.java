@@ -0,0 +1,29 @@
+package br.com.itstoony.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A loan change pushed to the loan event stream, named by its SSE event type.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanChangeDTO {
+
+    private Long loanId;
+
+    private Long bookId;
+
+    private String isbn;
+
+    // false while the book is on loan (a returned book may still be reserved for a holder)
+    private Boolean available;
+
+    private Instant occurredAt;
+}
@@ -21,6 +21,10 @@ public class ApiErrors {
         this.errors = Collections.singletonList(ex.getMessage());
     }
 
+    public ApiErrors(String error) {
+        this.errors = Collections.singletonList(error);
+    }
+
     public ApiErrors(ResponseStatusException ex) {
         this.errors = Collections.singletonList(ex.getReason());
     }
@@ -0,0 +1,27 @@
+package br.com.itstoony.libraryapi.api.exception;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * {@link ResponseStatusException} without a stack trace, for the expected failures of the API
+ * (a missing book, an invalid parameter). Those happen on every probe for an unknown id or isbn
+ * and are answered by {@code ApplicationControllerAdvice}, so the stack trace is never read.
+ * Throw a new instance per failure, it is cheap without the stack trace: a {@link ResponseStatusException} carries
+ * mutable state (its problem detail body, its headers), an instance shared by concurrent requests would share it too.
+ */
+public class ApiStatusException extends ResponseStatusException {
+
+    public ApiStatusException(HttpStatusCode status) {
+        super(status);
+    }
+
+    public ApiStatusException(HttpStatusCode status, String reason) {
+        super(status, reason);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Who a request comes from, for the rate limits and the idempotency keys: one of the configured api keys
+ * ({@code application.ratelimit.api-keys}), or else its ip. Any other {@code X-API-Key} value proves nothing
+ * and is ignored. The filters build it from the same property.
+ */
+final class ClientIdentity {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+
+    private final Set<String> apiKeys;
+
+    ClientIdentity(String[] apiKeys) {
+        this.apiKeys = Set.copyOf(List.of(apiKeys));
+    }
+
+    String of(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,207 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import br.com.itstoony.libraryapi.api.exception.ApiErrors;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes the creates of the API safe to retry: a POST to one of the {@code paths} with an {@code Idempotency-Key}
+ * header is run once per client (see {@link ClientIdentity}) and key, its retries get the original response back
+ * (marked with {@code Idempotent-Replayed}) without running the write again.
+ * <p>
+ * A key reused for a different body is refused with 422, a retry arriving while the first request still runs
+ * with 409. Server errors are not kept, so their retries run again.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+
+    private final ClientIdentity clients;
+
+    private final boolean enabled;
+
+    private final Set<String> paths;
+
+    private final IdempotencyStore store;
+
+    public IdempotencyFilter(ObjectMapper objectMapper,
+                             @Value("${application.ratelimit.api-keys:}") String[] apiKeys,
+                             @Value("${application.idempotency.enabled:true}") boolean enabled,
+                             @Value("${application.idempotency.paths:/api/loans,/api/books}") String[] paths,
+                             @Value("${application.idempotency.ttl-hours:24}") long ttlHours,
+                             @Value("${application.idempotency.max-keys:100000}") int maxKeys) {
+        this.objectMapper = objectMapper;
+        this.clients = new ClientIdentity(apiKeys);
+        this.enabled = enabled;
+        this.paths = Set.of(paths);
+        this.store = new IdempotencyStore(TimeUnit.HOURS.toNanos(ttlHours), maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key header");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String key = clients.of(request) + " " + request.getRequestURI() + " " + idempotencyKey;
+        byte[] fingerprint = fingerprint(cachedRequest.body);
+
+        IdempotencyStore.Entry first = store.begin(key, fingerprint, System.nanoTime());
+        if (first != null) {
+            answerRetry(first, fingerprint, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(cachedRequest, cachedResponse);
+
+            if (cachedResponse.getStatus() < 500) {
+                store.complete(key, new IdempotencyStore.StoredResponse(cachedResponse.getStatus(),
+                        cachedResponse.getContentType(), cachedResponse.getContentAsByteArray()), System.nanoTime());
+                stored = true;
+            }
+            cachedResponse.copyBodyToResponse();
+        } finally {
+            if (!stored) {
+                store.abandon(key);
+            }
+        }
+    }
+
+    private void answerRetry(IdempotencyStore.Entry first, byte[] fingerprint, HttpServletResponse response)
+            throws IOException {
+        if (!first.matches(fingerprint)) {
+            reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key already used for a different request");
+            return;
+        }
+        IdempotencyStore.StoredResponse original = first.response();
+        if (original == null) {
+            reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+            return;
+        }
+
+        log.debug(" replaying the response of an idempotent request");
+        response.setStatus(original.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (original.contentType() != null) {
+            response.setContentType(original.contentType());
+        }
+        response.setContentLength(original.body().length);
+        response.getOutputStream().write(original.body());
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrors(message));
+    }
+
+    private static byte[] fingerprint(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The body is read up front to fingerprint it, then served again to the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Responses of the writes done with an idempotency key, kept for a while so that a retry is answered with
+ * the original response instead of running the write again.
+ * <p>
+ * A key is first recorded as in progress, with the fingerprint of its request, and gets its response when the
+ * write completes. The store holds at most {@code maxKeys}: when full, expired keys are dropped and then the
+ * oldest completed ones.
+ * <p>
+ * Keys in progress are never dropped, their requests are still running: the bound is {@code maxKeys} plus the
+ * requests in progress (capped by the rate limit filter), and concurrent new keys may overshoot it by as many.
+ */
+public class IdempotencyStore {
+
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    public static final class Entry {
+
+        private final byte[] fingerprint;
+
+        private final long startedAtNanos;
+
+        private volatile StoredResponse response;
+
+        private volatile long expiresAtNanos = Long.MAX_VALUE;
+
+        private Entry(byte[] fingerprint, long startedAtNanos) {
+            this.fingerprint = fingerprint;
+            this.startedAtNanos = startedAtNanos;
+        }
+
+        public boolean matches(byte[] fingerprint) {
+            return Arrays.equals(this.fingerprint, fingerprint);
+        }
+
+        /**
+         * @return the original response, null while the first request is still running; the entry is the one
+         * stored, its response is set when the first request completes
+         */
+        public StoredResponse response() {
+            return response;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    private final int maxKeys;
+
+    public IdempotencyStore(long ttlNanos, int maxKeys) {
+        if (ttlNanos <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("Idempotency ttl and max keys must be positive");
+        }
+        this.ttlNanos = ttlNanos;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Records the key as in progress, unless it is already known.
+     *
+     * @return null when the caller has to run the request and then {@link #complete} or {@link #abandon} the key,
+     * otherwise the entry of the first request with this key
+     */
+    public Entry begin(String key, byte[] fingerprint, long nowNanos) {
+        Entry current = entries.get(key);
+        if (current != null && current.expiresAtNanos > nowNanos) {
+            return current;
+        }
+        if (current == null && entries.size() >= maxKeys) {
+            evict(nowNanos);
+        }
+
+        Entry started = new Entry(fingerprint, nowNanos);
+        Entry existing = entries.compute(key, (k, entry) ->
+                entry == null || entry.expiresAtNanos <= nowNanos ? started : entry);
+        return existing == started ? null : existing;
+    }
+
+    public void complete(String key, StoredResponse response, long nowNanos) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.response = response;
+            entry.expiresAtNanos = nowNanos + ttlNanos;
+        }
+    }
+
+    /**
+     * Forgets a key whose request failed without a response worth replaying, its retry runs again.
+     */
+    public void abandon(String key) {
+        entries.computeIfPresent(key, (k, entry) -> entry.response == null ? null : entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long nowNanos) {
+        entries.values().removeIf(entry -> entry.expiresAtNanos <= nowNanos);
+        if (entries.size() < maxKeys) {
+            return;
+        }
+        // still full of live keys: drop the oldest tenth of the completed ones at once, not one per new key
+        int toRemove = Math.max(1, maxKeys / 10);
+        entries.entrySet().stream()
+                .filter(entry -> entry.getValue().response != null)
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().startedAtNanos))
+                .limit(toRemove)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+    }
+}
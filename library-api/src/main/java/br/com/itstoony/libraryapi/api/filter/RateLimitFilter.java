@@ -0,0 +1,108 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import br.com.itstoony.libraryapi.api.exception.ApiErrors;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sheds load on the REST API with 429 instead of queuing requests: every client (api key or ip)
+ * has its own token bucket for reads and for writes, and the whole API has a cap of concurrent requests.
+ * Only the configured api keys get a bucket of their own, a client sending any other key is limited by its ip
+ * (see {@link ClientIdentity}).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final int maxConcurrentRequests;
+
+    private final ClientIdentity clients;
+
+    private final TokenBucketRateLimiter readLimiter;
+
+    private final TokenBucketRateLimiter writeLimiter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           @Value("${application.ratelimit.api-keys:}") String[] apiKeys,
+                           @Value("${application.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${application.ratelimit.max-concurrent-requests:200}") int maxConcurrentRequests,
+                           @Value("${application.ratelimit.max-clients:100000}") int maxClients,
+                           @Value("${application.ratelimit.read.permits-per-second:50}") int readPermits,
+                           @Value("${application.ratelimit.read.burst:100}") int readBurst,
+                           @Value("${application.ratelimit.write.permits-per-second:10}") int writePermits,
+                           @Value("${application.ratelimit.write.burst:20}") int writeBurst) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.clients = new ClientIdentity(apiKeys);
+        this.readLimiter = new TokenBucketRateLimiter(readPermits, readBurst, maxClients);
+        this.writeLimiter = new TokenBucketRateLimiter(writePermits, writeBurst, maxClients);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        TokenBucketRateLimiter limiter = isRead(request) ? readLimiter : writeLimiter;
+        long waitNanos = limiter.tryAcquire(clients.of(request), System.nanoTime());
+        if (waitNanos != TokenBucketRateLimiter.ALLOWED) {
+            reject(response, waitNanos, "Too many requests");
+            return;
+        }
+
+        if (inFlight.incrementAndGet() > maxConcurrentRequests) {
+            inFlight.decrementAndGet();
+            reject(response, TimeUnit.SECONDS.toNanos(1), "Server is busy, try again later");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos, String message) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.debug(" rejecting request, retry after {}s: {}", retryAfterSeconds, message);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrors(message));
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token bucket, implemented as a generic cell rate algorithm: each client
+ * only keeps the theoretical arrival time of its next request in an {@link AtomicLong},
+ * so acquiring a permit is a single CAS and never blocks.
+ * <p>
+ * At most {@code maxClients} are tracked: when full, the idle clients are forgotten, at most once per
+ * {@link #SWEEP_INTERVAL_NANOS}, and a new client is refused while every tracked one is still active.
+ */
+public class TokenBucketRateLimiter {
+
+    public static final long ALLOWED = 0L;
+
+    static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    private final int maxClients;
+
+    private final AtomicLong nextSweepNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucketRateLimiter(int permitsPerSecond, int burst, int maxClients) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate limit permits and burst must be positive");
+        }
+        this.emissionIntervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * @return {@link #ALLOWED} when a permit was taken, otherwise how many nanos the client should wait
+     */
+    public long tryAcquire(String client, long nowNanos) {
+        AtomicLong arrival = buckets.get(client);
+        if (arrival == null) {
+            if (buckets.size() >= maxClients && !evictIdleClients(nowNanos)) {
+                return Math.max(emissionIntervalNanos, nextSweepNanos.get() - nowNanos);
+            }
+            arrival = buckets.computeIfAbsent(client, key -> new AtomicLong(nowNanos));
+        }
+
+        while (true) {
+            long theoreticalArrival = arrival.get();
+            long base = Math.max(theoreticalArrival, nowNanos);
+            long allowedAt = base - burstToleranceNanos;
+
+            if (nowNanos < allowedAt) {
+                return allowedAt - nowNanos;
+            }
+            if (arrival.compareAndSet(theoreticalArrival, base + emissionIntervalNanos)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    public int trackedClients() {
+        return buckets.size();
+    }
+
+    /**
+     * @return whether there is room for a new client now
+     */
+    private boolean evictIdleClients(long nowNanos) {
+        long nextSweep = nextSweepNanos.get();
+        // one sweep per interval, whoever wins the CAS: clients arriving meanwhile don't scan the map again
+        if ((nextSweep == Long.MIN_VALUE || nowNanos - nextSweep >= 0)
+                && nextSweepNanos.compareAndSet(nextSweep, nowNanos + SWEEP_INTERVAL_NANOS)) {
+            // a bucket whose arrival time already passed is full again, forgetting it changes nothing
+            buckets.values().removeIf(arrival -> arrival.get() <= nowNanos);
+        }
+        return buckets.size() < maxClients;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import br.com.itstoony.libraryapi.config.Workload;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs reads under the api-read connection budget and writes under the api-write one, see
+ * {@link br.com.itstoony.libraryapi.config.BulkheadConfig}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Workload previous = (RateLimitFilter.isRead(request) ? Workload.API_READ : Workload.API_WRITE).enter();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -13,9 +15,15 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "book")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
+@Table(name = "book", indexes = {
+        @Index(name = Book.ISBN_KEY_INDEX, columnList = "isbn_key", unique = true)
+})
 public class Book {
 
+    public static final String ISBN_KEY_INDEX = "idx_book_isbn_key";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -26,9 +34,18 @@ public class Book {
     @Column(name = "author")
     private String author;
 
+    /**
+     * ISBN-13, digits only, see {@link br.com.itstoony.libraryapi.service.support.Isbn}.
+     */
     @Column(name = "isbn")
     private String isbn;
 
+    /**
+     * The ISBN-13 as a number: what isbn lookups compare.
+     */
+    @Column(name = "isbn_key")
+    private Long isbnKey;
+
     @OneToMany( mappedBy = "book" )
     private List<Loan> loans;
 
@@ -0,0 +1,46 @@
+package br.com.itstoony.libraryapi.api.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One write to the catalog or the loans, in the order of the change feed: the id is the feed's sequence.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_occurred_at", columnList = "occurred_at")
+})
+public class Change {
+
+    public enum Type { BOOK, LOAN }
+
+    public enum Operation { CREATED, UPDATED, DELETED, RETURNED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 8)
+    private Type type;
+
+    // id of the book or loan
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", length = 8)
+    private Operation operation;
+
+    @Column(name = "occurred_at")
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,45 @@
+package br.com.itstoony.libraryapi.api.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A customer waiting for a loaned book. The holds of a book are served in id order.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "book_hold", indexes = {
+        @Index(name = "idx_hold_book_customer", columnList = "id_book, customer", unique = true),
+        @Index(name = "idx_hold_promoted_at", columnList = "promoted_at")
+})
+public class Hold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne
+    private Book book;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // when the book came back for this customer, who may borrow it until the pickup time is over; null while waiting
+    @Column(name = "promoted_at")
+    private LocalDateTime promotedAt;
+}
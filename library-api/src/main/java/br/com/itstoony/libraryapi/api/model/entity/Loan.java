@@ -7,12 +7,20 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
+// an index for the filter of each LoanRepository query, the loans of a book still on loan read from the index alone
+@Table(name = "loan", indexes = {
+        @Index(name = "idx_loan_customer", columnList = "customer"),
+        @Index(name = "idx_loan_book_returned", columnList = "id_book, returned"),
+        @Index(name = "idx_loan_next_notify_at", columnList = "next_notify_at"),
+        @Index(name = "idx_loan_loan_date", columnList = "loanDate")
+})
 public class Loan {
 
     @Id
@@ -34,4 +42,15 @@ public class Loan {
 
     @Column
     private Boolean returned;
+
+    @Column(name = "last_notified_at")
+    private LocalDateTime lastNotifiedAt;
+
+    // late notices already sent
+    @Column(name = "notification_level")
+    private Integer notificationLevel;
+
+    // day of the next late notice, null once the loan is returned or the notices are over
+    @Column(name = "next_notify_at")
+    private LocalDate nextNotifyAt;
 }
@@ -0,0 +1,38 @@
+package br.com.itstoony.libraryapi.api.resource;
+
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Answers a request with the result of a future: the request thread is released until the future completes,
+ * and the request fails with 503 once {@code timeoutMillis} passed, the query it started may still finish.
+ */
+final class AsyncResults {
+
+    private AsyncResults() {
+    }
+
+    static <T> DeferredResult<T> of(CompletableFuture<T> future, long timeoutMillis) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> result.setErrorResult(timedOut()));
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(value);
+            } else {
+                // the failure of the query itself, answered as if it was thrown by the controller
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            }
+        });
+        return result;
+    }
+
+    static ApiStatusException timedOut() {
+        return new ApiStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The request took too long, try again later");
+    }
+}
@@ -1,11 +1,14 @@
 package br.com.itstoony.libraryapi.api.resource;
 
+import br.com.itstoony.libraryapi.api.dto.BookBatchItemDTO;
 import br.com.itstoony.libraryapi.api.dto.BookDTO;
-import br.com.itstoony.libraryapi.api.dto.LoanDTO;
+import br.com.itstoony.libraryapi.api.dto.PageDTO;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
-import br.com.itstoony.libraryapi.api.model.entity.Loan;
 import br.com.itstoony.libraryapi.service.BookService;
+import br.com.itstoony.libraryapi.service.BookSuggestionService;
 import br.com.itstoony.libraryapi.service.LoanService;
+import br.com.itstoony.libraryapi.service.support.Isbn;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -14,14 +17,19 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping(path = "/api/books")
@@ -36,6 +44,19 @@ public class BookController {
 
     private final LoanService loanService;
 
+    private final BookSuggestionService suggestionService;
+
+    @Value("${application.books.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${application.books.autocomplete.max-limit:20}")
+    private int autocompleteMaxLimit;
+
+    @Value("${application.books.find.timeout-ms:5000}")
+    private long findTimeoutMillis;
+
+    @Value("${application.books.loans.timeout-ms:5000}")
+    private long loansTimeoutMillis;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -55,6 +76,47 @@ public class BookController {
 
     }
 
+    @GetMapping("batch")
+    @Operation(summary = "Get details of several books by ids or isbns, in the requested order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books details successfully obtained, missing ones flagged as not found."),
+            @ApiResponse(responseCode = "400", description = "Failed to get books details.")
+    })
+    public List<BookBatchItemDTO> getBatch(@RequestParam(required = false) List<Long> ids,
+                                           @RequestParam(required = false) List<String> isbns) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byIsbns = isbns != null && !isbns.isEmpty();
+
+        if (byIds == byIsbns) {
+            throw new ApiStatusException(HttpStatus.BAD_REQUEST, "Inform either ids or isbns");
+        }
+
+        List<?> keys = byIds ? ids : isbns;
+        if (keys.size() > batchMaxSize) {
+            throw new ApiStatusException(HttpStatus.BAD_REQUEST, "At most " + batchMaxSize + " books per request");
+        }
+        log.info(" obtaining details for {} books", keys.size());
+
+        if (byIds) {
+            return toBatch(ids, bookService.getByIds(new LinkedHashSet<>(ids)), Book::getId, Function.identity());
+        }
+        return toBatch(isbns, bookService.getBooksByIsbns(new LinkedHashSet<>(isbns)), Book::getIsbnKey, Isbn::toKey);
+    }
+
+    @GetMapping("autocomplete")
+    @Operation(summary = "Suggest books whose title or author has a word starting with the typed text.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions successfully obtained."),
+            @ApiResponse(responseCode = "400", description = "Failed to get suggestions.")
+    })
+    public List<BookDTO> autocomplete(@RequestParam("q") String text, @RequestParam(defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, autocompleteMaxLimit));
+        return suggestionService.suggest(text, size)
+                .stream()
+                .map(DtoMapping::toBookDTO)
+                .toList();
+    }
+
     @GetMapping("{id}")
     @Operation(summary = "Get details of a book by id.")
     @ApiResponses(value = {
@@ -65,7 +127,7 @@ public class BookController {
         log.info(" obtaining details for book id: {}", id);
         return bookService.getById(id)
                 .map( book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                .orElseThrow( () -> new ApiStatusException(HttpStatus.NOT_FOUND));
     }
 
     @DeleteMapping("{id}")
@@ -77,7 +139,7 @@ public class BookController {
     })
     public void delete(@PathVariable Long id) {
         log.info(" deleting book of id: {}", id);
-        Book book = bookService.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Book book = bookService.getById(id).orElseThrow( () -> new ApiStatusException(HttpStatus.NOT_FOUND));
         bookService.delete(book);
     }
 
@@ -98,50 +160,72 @@ public class BookController {
 
             return modelMapper.map(book, BookDTO.class);
 
-        }).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }).orElseThrow( () -> new ApiStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping
-    @Operation(summary = "Find books by params.")
+    @Operation(summary = "Find books by params, only the available ones (or only those on loan) with available=true (false).")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found books by parameters successfully obtained."),
-            @ApiResponse(responseCode = "400", description = "Failed to find books by parameters.")
+            @ApiResponse(responseCode = "400", description = "Failed to find books by parameters."),
+            @ApiResponse(responseCode = "503", description = "Too many searches in progress, or the search took too long.")
     })
-    public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
+    public DeferredResult<PageDTO<?>> find(BookDTO dto, Pageable pageRequest, @RequestParam(required = false) String fields,
+                                           @RequestParam(required = false) Boolean available) {
+        Set<String> selected = DtoMapping.parseFields(fields, DtoMapping.BOOK_FIELDS);
         Book filter = modelMapper.map(dto, Book.class);
 
-        Page<Book> result = bookService.find(filter, pageRequest);
-
-        List<BookDTO> list = result.getContent()
-                .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
-                .toList();
+        return AsyncResults.of(bookService.findAsync(filter, available, pageRequest).thenApply(result -> {
+            List<?> list = result.getContent()
+                    .stream()
+                    .map(entity -> selected.isEmpty() ? DtoMapping.toBookDTO(entity) : DtoMapping.bookFields(entity, selected))
+                    .toList();
 
-        return new PageImpl<>(list, pageRequest, result.getTotalElements());
+            return PageDTO.of(new PageImpl<>(list, pageRequest, result.getTotalElements()));
+        }), findTimeoutMillis);
     }
 
     @GetMapping("{id}/loans")
     @Operation(summary = "Search loans by book id.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book loan search successfully obtained."),
-            @ApiResponse(responseCode = "400", description = "Failure to get book loans.")
+            @ApiResponse(responseCode = "400", description = "Failure to get book loans."),
+            @ApiResponse(responseCode = "503", description = "Too many searches in progress, or the search took too long.")
     })
-    public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable) {
-        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
+    public DeferredResult<PageDTO<?>> loansByBook(@PathVariable Long id, Pageable pageable,
+                                                  @RequestParam(required = false) String fields) {
+        Set<String> selected = DtoMapping.parseFields(fields, DtoMapping.LOAN_FIELDS);
+        Book book = bookService.getById(id).orElseThrow(() -> new ApiStatusException(HttpStatus.NOT_FOUND));
+
+        return AsyncResults.of(loanService.getLoansByBookAsync(book, pageable).thenApply(result -> {
+            List<?> dtoList = result
+                    .getContent()
+                    .stream()
+                    .map(loan -> selected.isEmpty() ? DtoMapping.toLoanDTO(loan) : DtoMapping.loanFields(loan, selected))
+                    .toList();
+
+            return PageDTO.of(new PageImpl<>(dtoList, pageable, result.getTotalElements()));
+        }), loansTimeoutMillis);
+    }
 
-        List<LoanDTO> dtoList = result
-                .getContent()
-                .stream()
-                .map( loan -> {
-                    Book loanBook = loan.getBook();
-                    BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                } )
+    /**
+     * @param lookupKeyOf what a requested key is matched against the books with, an isbn in any of its forms
+     *                    matches the book's isbn key
+     */
+    private static <K, L> List<BookBatchItemDTO> toBatch(List<K> keys, List<Book> books, Function<Book, L> keyOf,
+                                                         Function<K, L> lookupKeyOf) {
+        Map<L, BookDTO> found = new HashMap<>();
+        books.forEach(book -> found.put(keyOf.apply(book), DtoMapping.toBookDTO(book)));
+
+        return keys.stream()
+                .map(key -> {
+                    BookDTO book = found.get(lookupKeyOf.apply(key));
+                    return BookBatchItemDTO.builder()
+                            .key(String.valueOf(key))
+                            .found(book != null)
+                            .book(book)
+                            .build();
+                })
                 .toList();
-
-        return new PageImpl<>(dtoList, pageable, result.getTotalElements());
     }
 }
@@ -0,0 +1,84 @@
+package br.com.itstoony.libraryapi.api.resource;
+
+import br.com.itstoony.libraryapi.api.dto.ChangeDTO;
+import br.com.itstoony.libraryapi.api.dto.ChangesDTO;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.service.ChangeFeedService;
+import br.com.itstoony.libraryapi.service.ChangeFeedService.ChangePage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@Tag(name = "Changes", description = "Feed of the changes to books and loans, for incremental syncs.")
+public class ChangeController {
+
+    private final ChangeFeedService service;
+
+    @Value("${application.changes.default-limit:100}")
+    private int defaultLimit;
+
+    @Value("${application.changes.max-limit:1000}")
+    private int maxLimit;
+
+    @GetMapping
+    @Operation(summary = "Changes after since, in order. Without since only returns the current sequence: take it, "
+            + "export the books, then sync from it passing each response's next as since.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes successfully obtained."),
+            @ApiResponse(responseCode = "400", description = "Invalid since."),
+            @ApiResponse(responseCode = "410", description = "Changes after since no longer kept.")
+    })
+    public ChangesDTO changes(@RequestParam(required = false) Long since, @RequestParam(required = false) Integer limit) {
+        if (since == null) {
+            return ChangesDTO.builder().changes(List.of()).next(service.lastSequence()).build();
+        }
+        if (since < 0) {
+            throw new ApiStatusException(HttpStatus.BAD_REQUEST, "since must not be negative");
+        }
+        if (!service.isRetained(since)) {
+            throw new ApiStatusException(HttpStatus.GONE, "Changes after since were pruned, sync from a full export");
+        }
+
+        int size = limit == null || limit <= 0 ? defaultLimit : Math.min(limit, maxLimit);
+        ChangePage page = service.getChanges(since, size);
+
+        List<ChangeDTO> changes = page.changes().stream()
+                .map(change -> toDTO(change, page))
+                .toList();
+        return ChangesDTO.builder().changes(changes).next(page.next()).more(page.more()).build();
+    }
+
+    private static ChangeDTO toDTO(Change change, ChangePage page) {
+        ChangeDTO.ChangeDTOBuilder dto = ChangeDTO.builder()
+                .sequence(change.getId())
+                .type(change.getType().name())
+                .id(change.getEntityId())
+                .operation(change.getOperation().name())
+                .occurredAt(change.getOccurredAt());
+
+        if (change.getType() == Change.Type.BOOK) {
+            Book book = page.books().get(change.getEntityId());
+            dto.book(book == null ? null : DtoMapping.toBookDTO(book));
+        } else {
+            Loan loan = page.loans().get(change.getEntityId());
+            dto.loan(loan == null ? null : DtoMapping.toLoanDTO(loan));
+        }
+        return dto.build();
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.itstoony.libraryapi.api.resource;
+
+import br.com.itstoony.libraryapi.api.dto.BookDTO;
+import br.com.itstoony.libraryapi.api.dto.LoanDTO;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import org.springframework.http.HttpStatus;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Entity to response mapping for the list endpoints, done by hand instead of a ModelMapper
+ * pass per row, and restricted to the {@code fields} asked by the client when there are any.
+ */
+final class DtoMapping {
+
+    static final Set<String> BOOK_FIELDS = Set.of("id", "title", "author", "isbn");
+
+    static final Set<String> LOAN_FIELDS = Set.of("id", "isbn", "customer", "email", "book");
+
+    private DtoMapping() {
+    }
+
+    /**
+     * @return the requested fields, or an empty set when every field should be returned
+     */
+    static Set<String> parseFields(String fields, Set<String> allowed) {
+        if (fields == null || fields.isBlank()) {
+            return Set.of();
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(field -> {
+                    if (!allowed.contains(field)) {
+                        throw new ApiStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + field);
+                    }
+                    selected.add(field);
+                });
+        return selected;
+    }
+
+    static BookDTO toBookDTO(Book book) {
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .build();
+    }
+
+    static LoanDTO toLoanDTO(Loan loan) {
+        Book book = loan.getBook();
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .isbn(book == null ? null : book.getIsbn())
+                .customer(loan.getCustomer())
+                .email(loan.getCustomerEmail())
+                .book(book == null ? null : toBookDTO(book))
+                .build();
+    }
+
+    static Map<String, Object> bookFields(Book book, Set<String> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> values.put(field, book.getId());
+                case "title" -> values.put(field, book.getTitle());
+                case "author" -> values.put(field, book.getAuthor());
+                case "isbn" -> values.put(field, book.getIsbn());
+                default -> throw new IllegalArgumentException(field);
+            }
+        }
+        return values;
+    }
+
+    static Map<String, Object> loanFields(Loan loan, Set<String> fields) {
+        Book book = loan.getBook();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> values.put(field, loan.getId());
+                case "isbn" -> values.put(field, book == null ? null : book.getIsbn());
+                case "customer" -> values.put(field, loan.getCustomer());
+                case "email" -> values.put(field, loan.getCustomerEmail());
+                case "book" -> values.put(field, book == null ? null : toBookDTO(book));
+                default -> throw new IllegalArgumentException(field);
+            }
+        }
+        return values;
+    }
+}
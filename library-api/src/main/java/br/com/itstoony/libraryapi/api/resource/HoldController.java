@@ -0,0 +1,83 @@
+package br.com.itstoony.libraryapi.api.resource;
+
+import br.com.itstoony.libraryapi.api.dto.HoldDTO;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.service.BookService;
+import br.com.itstoony.libraryapi.service.HoldService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+@Tag(name = "Holds", description = "API responsible for the queues of customers waiting for loaned books.")
+public class HoldController {
+
+    private final HoldService service;
+
+    private final BookService bookService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Wait for a loaned book, the customer is mailed when it is back.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Customer queued for the book."),
+            @ApiResponse(responseCode = "400", description = "Failed to queue the customer.")
+    })
+    public HoldDTO create(@RequestBody @Valid HoldDTO dto) {
+        Book book = bookService
+                .getBookByIsbn(dto.getIsbn())
+                .orElseThrow( () -> new ApiStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
+
+        Hold hold = Hold.builder()
+                .customer(dto.getCustomer())
+                .customerEmail(dto.getEmail())
+                .book(book)
+                .build();
+
+        return toDTO(service.place(hold));
+    }
+
+    @GetMapping("{id}")
+    @Operation(summary = "Get a hold and its position in the queue.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hold details successfully obtained."),
+            @ApiResponse(responseCode = "404", description = "Hold not found.")
+    })
+    public HoldDTO get(@PathVariable Long id) {
+        return service.getById(id)
+                .map(this::toDTO)
+                .orElseThrow( () -> new ApiStatusException(HttpStatus.NOT_FOUND, "Hold not found"));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Leave the queue.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Hold successfully cancelled."),
+            @ApiResponse(responseCode = "404", description = "Hold not found.")
+    })
+    public void cancel(@PathVariable Long id) {
+        Hold hold = service.getById(id).orElseThrow( () -> new ApiStatusException(HttpStatus.NOT_FOUND, "Hold not found"));
+        service.cancel(hold);
+    }
+
+    private HoldDTO toDTO(Hold hold) {
+        return HoldDTO.builder()
+                .id(hold.getId())
+                .isbn(hold.getBook().getIsbn())
+                .customer(hold.getCustomer())
+                .email(hold.getCustomerEmail())
+                .position(service.position(hold))
+                .ready(hold.getPromotedAt() != null)
+                .build();
+    }
+}
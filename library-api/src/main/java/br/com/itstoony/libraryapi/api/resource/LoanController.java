@@ -1,11 +1,13 @@
 package br.com.itstoony.libraryapi.api.resource;
 
-import br.com.itstoony.libraryapi.api.dto.BookDTO;
 import br.com.itstoony.libraryapi.api.dto.LoanDTO;
 import br.com.itstoony.libraryapi.api.dto.LoanFilterDTO;
+import br.com.itstoony.libraryapi.api.dto.PageDTO;
 import br.com.itstoony.libraryapi.api.dto.ReturnedLoanDTO;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.api.stream.LoanEventBroadcaster;
 import br.com.itstoony.libraryapi.service.BookService;
 import br.com.itstoony.libraryapi.service.LoanService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,16 +15,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -34,7 +38,10 @@ public class LoanController {
 
     private final BookService bookService;
 
-    private final ModelMapper modelMapper;
+    private final LoanEventBroadcaster broadcaster;
+
+    @Value("${application.loans.find.timeout-ms:5000}")
+    private long findTimeoutMillis;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -46,11 +53,11 @@ public class LoanController {
     public Long create(@RequestBody LoanDTO dto) {
         Book book = bookService
                 .getBookByIsbn(dto.getIsbn())
-                .orElseThrow( () ->
-                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
+                .orElseThrow( () -> new ApiStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
 
         Loan loan = Loan.builder()
                 .customer(dto.getCustomer())
+                .customerEmail(dto.getEmail())
                 .book(book)
                 .loanDate(LocalDate.now())
                 .build();
@@ -67,7 +74,7 @@ public class LoanController {
             @ApiResponse(responseCode = "400", description = "Failed to get loan details.")
     })
     public ReturnedLoanDTO returnBook( @PathVariable Long id ) {
-        Loan loan = service.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Loan not found"));
+        Loan loan = service.getById(id).orElseThrow( () -> new ApiStatusException(HttpStatus.NOT_FOUND, "Loan not found"));
         loan.setReturned(true);
         loan = service.update(loan);
 
@@ -78,25 +85,37 @@ public class LoanController {
     @Operation(summary = "Get loans with filters")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Find loans by parameters successfully obtained."),
-            @ApiResponse(responseCode = "400", description = "Failed to find loans by parameters.")
+            @ApiResponse(responseCode = "400", description = "Failed to find loans by parameters."),
+            @ApiResponse(responseCode = "503", description = "Too many searches in progress, or the search took too long.")
     })
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest) {
-
-        Page<Loan> result = service.find(dto, pageRequest);
-
-        List<LoanDTO> loans = result
-                .getContent()
-                .stream()
-                .map(entity -> {
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO =  modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                })
-                .toList();
-
-        return new PageImpl<>(loans, pageRequest, result.getTotalElements());
+    public DeferredResult<PageDTO<?>> find(LoanFilterDTO dto, Pageable pageRequest, @RequestParam(required = false) String fields) {
+        Set<String> selected = DtoMapping.parseFields(fields, DtoMapping.LOAN_FIELDS);
+
+        return AsyncResults.of(service.findAsync(dto, pageRequest).thenApply(result -> {
+            List<?> loans = result
+                    .getContent()
+                    .stream()
+                    .map(entity -> selected.isEmpty() ? DtoMapping.toLoanDTO(entity) : DtoMapping.loanFields(entity, selected))
+                    .toList();
+
+            return PageDTO.of(new PageImpl<>(loans, pageRequest, result.getTotalElements()));
+        }), findTimeoutMillis);
+    }
 
+    @GetMapping(path = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream of loan-created and loan-returned events (Server-Sent Events), of one book with bookId or isbn.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened."),
+            @ApiResponse(responseCode = "400", description = "Book not found for passed isbn."),
+            @ApiResponse(responseCode = "503", description = "Too many subscribers.")
+    })
+    public SseEmitter events(@RequestParam(required = false) Long bookId, @RequestParam(required = false) String isbn) {
+        if (isbn != null && !isbn.isBlank()) {
+            bookId = bookService
+                    .getBookByIsbn(isbn)
+                    .orElseThrow( () -> new ApiStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"))
+                    .getId();
+        }
+        return broadcaster.subscribe(bookId);
     }
 }
@@ -0,0 +1,359 @@
+package br.com.itstoony.libraryapi.api.stream;
+
+import br.com.itstoony.libraryapi.api.dto.LoanChangeDTO;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.service.event.LoanCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.LoanEvent;
+import br.com.itstoony.libraryapi.service.event.LoanEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pushes loan changes to the subscribers of the loan event stream (Server-Sent Events).
+ * <p>
+ * The fan-out runs on the loan event worker and never writes to a connection: it only offers the change to
+ * the bounded buffer of each interested subscriber, indexed by book, and schedules that subscriber's drain on
+ * the sender threads. A subscriber whose buffer is full has fallen behind and is disconnected, its client
+ * reconnects. An idle subscriber is only an open connection and a few objects.
+ * <p>
+ * Writes to a connection block while the client doesn't read. A write still blocked after {@code write-timeout-ms}
+ * disconnects its subscriber, and the sender pool gets a thread in place of the blocked one until the write
+ * returns, so the other subscribers keep being sent to. Emitters are only completed from the sender threads: an
+ * emitter is locked while it writes, completing it from elsewhere would wait for the blocked write.
+ */
+@Component
+@Slf4j
+public class LoanEventBroadcaster implements LoanEventListener {
+
+    // buffered in place of a change, sent as an SSE comment
+    private static final Object HEARTBEAT = new Object();
+
+    private final Set<Subscriber> allBooks = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscriber>> byBook = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final Executor executor;
+
+    private final int maxSubscribers;
+
+    private final int bufferSize;
+
+    private final Supplier<SseEmitter> emitters;
+
+    private final long writeTimeoutNanos;
+
+    private final Counter disconnected;
+
+    private final Counter stalled;
+
+    @Autowired
+    public LoanEventBroadcaster(MeterRegistry meterRegistry,
+                                @Value("${application.events.stream.threads:2}") int threads,
+                                @Value("${application.events.stream.max-subscribers:10000}") int maxSubscribers,
+                                @Value("${application.events.stream.buffer-size:32}") int bufferSize,
+                                @Value("${application.events.stream.timeout-ms:1800000}") long timeoutMillis,
+                                @Value("${application.events.stream.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this(Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("loan-stream-")),
+                () -> new SseEmitter(timeoutMillis), meterRegistry, maxSubscribers, bufferSize, writeTimeoutMillis);
+    }
+
+    LoanEventBroadcaster(Executor executor, Supplier<SseEmitter> emitters, MeterRegistry meterRegistry,
+                         int maxSubscribers, int bufferSize, long writeTimeoutMillis) {
+        this.executor = executor;
+        this.emitters = emitters;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+
+        Gauge.builder("library.loans.stream.subscribers", subscribers, AtomicInteger::get).register(meterRegistry);
+        this.disconnected = Counter.builder("library.loans.stream.lagging-disconnected").register(meterRegistry);
+        this.stalled = Counter.builder("library.loans.stream.stalled-disconnected").register(meterRegistry);
+    }
+
+    /**
+     * @param bookId only the changes of this book, all of them if null
+     */
+    public SseEmitter subscribe(Long bookId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new ApiStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers, try again later");
+        }
+
+        SseEmitter emitter = emitters.get();
+        Subscriber subscriber = new Subscriber(emitter, bookId);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        if (bookId == null) {
+            allBooks.add(subscriber);
+        } else {
+            // added inside compute: a concurrent removal may drop the set of the book
+            byBook.compute(bookId, (id, ofBook) -> {
+                Set<Subscriber> subscribed = ofBook == null ? ConcurrentHashMap.newKeySet() : ofBook;
+                subscribed.add(subscriber);
+                return subscribed;
+            });
+        }
+        return emitter;
+    }
+
+    public int subscribers() {
+        return subscribers.get();
+    }
+
+    @Override
+    public void onLoanEvents(List<LoanEvent> events) {
+        for (LoanEvent event : events) {
+            boolean created = event instanceof LoanCreatedEvent;
+            Change change = new Change(created ? "loan-created" : "loan-returned", LoanChangeDTO.builder()
+                    .loanId(event.loanId())
+                    .bookId(event.bookId())
+                    .isbn(event.isbn())
+                    .available(!created)
+                    .occurredAt(event.occurredAt())
+                    .build());
+
+            allBooks.forEach(subscriber -> subscriber.offer(change));
+            Set<Subscriber> ofBook = byBook.get(event.bookId());
+            if (ofBook != null) {
+                ofBook.forEach(subscriber -> subscriber.offer(change));
+            }
+        }
+    }
+
+    /**
+     * Keeps proxies from closing idle streams and finds the connections closed by the other side.
+     */
+    @Scheduled(initialDelayString = "${application.events.stream.heartbeat-interval:PT30S}",
+            fixedDelayString = "${application.events.stream.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        forEachSubscriber(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    /**
+     * Disconnects the subscribers whose write has been blocked for longer than {@code write-timeout-ms}.
+     */
+    @Scheduled(initialDelayString = "${application.events.stream.write-check-interval:PT1S}",
+            fixedDelayString = "${application.events.stream.write-check-interval:PT1S}")
+    public void abandonStalledWrites() {
+        long now = System.nanoTime();
+        forEachSubscriber(subscriber -> subscriber.abandonIfStalled(now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forEachSubscriber(subscriber -> subscriber.emitter.complete());
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    private void forEachSubscriber(Consumer<Subscriber> action) {
+        allBooks.forEach(action);
+        byBook.values().forEach(ofBook -> ofBook.forEach(action));
+    }
+
+    /**
+     * Grows (or shrinks back) the sender pool by one thread, standing in for a thread blocked in a write.
+     */
+    private void resizeSenders(int delta) {
+        if (!(executor instanceof ThreadPoolExecutor pool)) {
+            return;
+        }
+        synchronized (pool) {
+            // the core size may never exceed the maximum one
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    /**
+     * @return false if the subscriber was already removed
+     */
+    private boolean remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscribers.decrementAndGet();
+        if (subscriber.bookId == null) {
+            allBooks.remove(subscriber);
+        } else {
+            byBook.computeIfPresent(subscriber.bookId, (id, ofBook) -> {
+                ofBook.remove(subscriber);
+                return ofBook.isEmpty() ? null : ofBook;
+            });
+        }
+        return true;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Long bookId;
+
+        private final Queue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        // the write in progress: when it started (0 between writes), its thread, and whether it was given up on;
+        // guarded by the subscriber, which is never locked during a write
+        private long writeStartedNanos;
+
+        private Thread writer;
+
+        private boolean stalled;
+
+        private Subscriber(SseEmitter emitter, Long bookId) {
+            this.emitter = emitter;
+            this.bookId = bookId;
+        }
+
+        void offer(Object item) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(item)) {
+                if (item != HEARTBEAT) {
+                    log.debug(" loan stream subscriber fell {} events behind, disconnecting it", bufferSize);
+                    disconnected.increment();
+                    close();
+                }
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void abandonIfStalled(long now) {
+            synchronized (this) {
+                if (writeStartedNanos == 0 || now - writeStartedNanos < writeTimeoutNanos || stalled) {
+                    return;
+                }
+                stalled = true;
+                resizeSenders(1);
+                writer.interrupt();
+            }
+            log.warn(" loan stream subscriber blocked in a write for over {} ms, disconnecting it",
+                    TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+            LoanEventBroadcaster.this.stalled.increment();
+            if (remove(this)) {
+                buffer.clear();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                draining.set(false);
+                remove(this);
+                complete();
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed.get() && (item = buffer.poll()) != null) {
+                    send(item);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // the client went away, or the stream already completed
+                remove(this);
+            } finally {
+                draining.set(false);
+            }
+            if (closed.get()) {
+                complete();
+            } else if (!buffer.isEmpty()) {
+                // an item may have been buffered after the last poll but before the flag was released
+                scheduleDrain();
+            }
+        }
+
+        private void send(Object item) throws IOException {
+            synchronized (this) {
+                writer = Thread.currentThread();
+                writeStartedNanos = System.nanoTime();
+            }
+            try {
+                emitter.send(item instanceof Change change
+                        ? SseEmitter.event().name(change.name()).data(change.data())
+                        : SseEmitter.event().comment("heartbeat"));
+            } finally {
+                synchronized (this) {
+                    writeStartedNanos = 0;
+                    writer = null;
+                    if (stalled) {
+                        // the thread standing in for this one is no longer needed
+                        stalled = false;
+                        resizeSenders(-1);
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes the subscriber, its emitter is completed by a drain.
+         */
+        private void close() {
+            if (remove(this)) {
+                buffer.clear();
+                scheduleDrain();
+            }
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private record Change(String name, LoanChangeDTO data) {
+    }
+}
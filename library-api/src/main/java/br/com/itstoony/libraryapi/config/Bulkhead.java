@@ -0,0 +1,90 @@
+package br.com.itstoony.libraryapi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * At most {@code limit} connections held at once by one workload. Past that a caller waits up to
+ * {@code maxWaitMillis} for one to be released, then is refused.
+ */
+public class Bulkhead implements MeterBinder {
+
+    private final String name;
+
+    private final int limit;
+
+    private final long maxWaitNanos;
+
+    private final Semaphore permits;
+
+    private final AtomicLong waited = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int limit, long maxWaitMillis) {
+        if (limit < 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Bulkhead limit and wait can't be negative");
+        }
+        this.name = name;
+        this.limit = limit;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.permits = new Semaphore(limit, true);
+    }
+
+    public void acquire() throws BulkheadFullException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        waited.incrementAndGet();
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        throw new BulkheadFullException(name, limit);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getActive() {
+        return limit - permits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.bulkhead.connections.active", this, Bulkhead::getActive)
+                .tag("workload", name)
+                .description("Connections held by the workload")
+                .register(registry);
+        Gauge.builder("library.bulkhead.connections.limit", this, Bulkhead::getLimit)
+                .tag("workload", name)
+                .register(registry);
+        FunctionCounter.builder("library.bulkhead.connections.waited", waited, AtomicLong::get)
+                .tag("workload", name)
+                .description("Connections that had to wait for the budget")
+                .register(registry);
+        FunctionCounter.builder("library.bulkhead.connections.rejected", rejected, AtomicLong::get)
+                .tag("workload", name)
+                .description("Connections refused after waiting for the budget")
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.itstoony.libraryapi.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bulkheads between the requests, the scheduled jobs, the loan event listeners and the mail: each workload runs on its
+ * own threads (request threads, the JDBC and mail executors of {@link ExecutorConfig}, the scheduler, the loan event worker) and holds at most
+ * {@code application.bulkhead.<workload>.connections} connections of the pool, see {@link BulkheadDataSource}.
+ */
+@Configuration
+@Slf4j
+public class BulkheadConfig {
+
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(Environment environment) {
+        boolean enabled = environment.getProperty("application.bulkhead.enabled", Boolean.class, true);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+                for (Workload workload : Workload.values()) {
+                    String prefix = "application.bulkhead." + workload.key();
+                    bulkheads.put(workload, new Bulkhead(workload.key(),
+                            environment.getRequiredProperty(prefix + ".connections", Integer.class),
+                            environment.getRequiredProperty(prefix + ".max-wait-ms", Long.class)));
+                }
+                log.info(" connection budgets of {}: {}", beanName, bulkheads.values().stream()
+                        .map(bulkhead -> bulkhead.getName() + "=" + bulkhead.getLimit())
+                        .toList());
+                return new BulkheadDataSource(dataSource, bulkheads);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder bulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BulkheadDataSource bulkheadDataSource) {
+                bulkheadDataSource.getBulkheads().forEach(bulkhead -> bulkhead.bindTo(registry));
+            }
+        };
+    }
+
+    /**
+     * The scheduled jobs run on the scheduler threads, {@code spring.task.scheduling.pool.size} of them.
+     */
+    @Bean
+    public TaskSchedulerCustomizer jobsWorkloadSchedulerCustomizer() {
+        return scheduler -> scheduler.setThreadFactory(Workload.JOBS.threadFactory(scheduler));
+    }
+}
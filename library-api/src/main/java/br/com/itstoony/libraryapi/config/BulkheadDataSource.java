@@ -0,0 +1,95 @@
+package br.com.itstoony.libraryapi.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Splits one connection pool into budgets: a thread takes a connection from the budget of its {@link Workload},
+ * released when the connection is closed. The budgets of the background workloads, added up, stay below the pool
+ * size, so a slow job or a mail burst can't take the connections of the requests.
+ * Threads of no workload are not held to a budget.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Map<Workload, Bulkhead> bulkheads;
+
+    public BulkheadDataSource(DataSource targetDataSource, Map<Workload, Bulkhead> bulkheads) {
+        super(targetDataSource);
+        this.bulkheads = Map.copyOf(bulkheads);
+    }
+
+    public Collection<Bulkhead> getBulkheads() {
+        return bulkheads.values();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Bulkhead bulkhead = bulkheadOfCurrentThread();
+        if (bulkhead == null) {
+            return super.getConnection();
+        }
+        bulkhead.acquire();
+        try {
+            return releasingOnClose(super.getConnection(), bulkhead);
+        } catch (SQLException | RuntimeException ex) {
+            bulkhead.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Bulkhead bulkhead = bulkheadOfCurrentThread();
+        if (bulkhead == null) {
+            return super.getConnection(username, password);
+        }
+        bulkhead.acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password), bulkhead);
+        } catch (SQLException | RuntimeException ex) {
+            bulkhead.release();
+            throw ex;
+        }
+    }
+
+    private Bulkhead bulkheadOfCurrentThread() {
+        Workload workload = Workload.current();
+        return workload == null ? null : bulkheads.get(workload);
+    }
+
+    private static Connection releasingOnClose(Connection connection, Bulkhead bulkhead) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{ Connection.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "close" -> {
+                        try {
+                            yield invoke(connection, method, args);
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                bulkhead.release();
+                            }
+                        }
+                    }
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.itstoony.libraryapi.config;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * A workload used its whole connection budget for longer than it may wait, see {@link Bulkhead}.
+ */
+public class BulkheadFullException extends SQLTransientConnectionException {
+
+    public BulkheadFullException(String name, int limit) {
+        super("Connection budget of " + name + " exhausted (" + limit + " connections)");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.itstoony.libraryapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+
+@Configuration
+@EnableAsync
+public class ExecutorConfig {
+
+    public static final String MAIL_TASK_EXECUTOR = "mailTaskExecutor";
+
+    public static final String JDBC_TASK_EXECUTOR = "jdbcTaskExecutor";
+
+    /**
+     * Declaring any other executor turns off Spring Boot's default one, so it is declared here the way
+     * {@link TaskExecutionAutoConfiguration} does it, configured by the {@code spring.task.execution.*} properties.
+     */
+    @Lazy
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Mail runs on its own threads, see {@link BulkheadConfig}. When its queue is full a scheduled job sends the mail
+     * itself, slowing down to the pace of the SMTP server, but no other thread does (neither a request nor the loan
+     * event worker): the mail is refused with a {@link TaskRejectedException}, and counted, for its caller to handle.
+     */
+    @Bean(name = MAIL_TASK_EXECUTOR)
+    public AsyncTaskExecutor mailTaskExecutor(MeterRegistry meterRegistry,
+                                              @Value("${application.threads.virtual.enabled:false}") boolean virtualThreads,
+                                              @Value("${application.mail.executor.threads:2}") int threads,
+                                              @Value("${application.mail.executor.queue-capacity:100}") int queueCapacity) {
+        if (virtualThreads) {
+            ConcurrentTaskExecutor executor = new ConcurrentTaskExecutor(
+                    VirtualThreads.newThreadPerTaskExecutor(VirtualThreads.factory("mail-virtual-")));
+            executor.setTaskDecorator(Workload.MAIL::wrap);
+            return executor;
+        }
+
+        Counter rejected = rejectedCounter(meterRegistry, "mail");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mail-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(Workload.MAIL::wrap);
+        RejectedExecutionHandler abort = abortCounting(rejected);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (Workload.current() == Workload.JOBS && !pool.isShutdown()) {
+                task.run();
+                return;
+            }
+            abort.rejectedExecution(task, pool);
+        });
+        return executor;
+    }
+
+    /**
+     * Runs the list and search queries of the API while the request thread is released. At most {@code threads}
+     * run at once, keep it within the api-read connection budget, and {@code queue-capacity} wait: the queries past
+     * that are refused (answered with 503) instead of holding request threads. A pool of platform threads even with
+     * virtual threads on, its size is what bounds the queries.
+     */
+    @Bean(name = JDBC_TASK_EXECUTOR)
+    public AsyncTaskExecutor jdbcTaskExecutor(MeterRegistry meterRegistry,
+                                              @Value("${application.jdbc.executor.threads:6}") int threads,
+                                              @Value("${application.jdbc.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("jdbc-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(Workload.API_READ::wrap);
+        executor.setRejectedExecutionHandler(abortCounting(rejectedCounter(meterRegistry, "jdbc")));
+        return executor;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String executor) {
+        return Counter.builder("library.executor.rejected")
+                .tag("executor", executor)
+                .description("Tasks refused because the executor queue was full")
+                .register(meterRegistry);
+    }
+
+    private static RejectedExecutionHandler abortCounting(Counter rejected) {
+        return (task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Executor queue full");
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.itstoony.libraryapi.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Cache manager of the Hibernate second-level cache, with the regions of {@code ehcache.xml}.
+ * <p>
+ * Every application context gets its own manager: JCache hands out one shared manager per configuration uri,
+ * which would let contexts with different databases (the test contexts) see each other's entities,
+ * and Hibernate closes it when the first of them shuts down.
+ * Imported by LibraryApiApplication so that the JPA test slices use it as well.
+ */
+@Configuration(proxyBeanMethods = false)
+public class HibernateCacheConfig {
+
+    private static final String CONFIGURATION = "/ehcache.xml";
+
+    @Bean(destroyMethod = "close")
+    @Lazy
+    public CacheManager hibernateCacheManager() {
+        ClassLoader classLoader = HibernateCacheConfig.class.getClassLoader();
+        XmlConfiguration configuration = new XmlConfiguration(HibernateCacheConfig.class.getResource(CONFIGURATION), classLoader);
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName(), classLoader);
+        return provider.getCacheManager(URI.create("urn:library-api:hibernate:" + UUID.randomUUID()), configuration);
+    }
+
+    /**
+     * Only creates the manager when Hibernate starts, slices without JPA never allocate its off-heap tier.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager.getObject());
+    }
+}
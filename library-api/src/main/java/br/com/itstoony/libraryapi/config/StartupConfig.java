@@ -0,0 +1,48 @@
+package br.com.itstoony.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@Slf4j
+public class StartupConfig {
+
+    /**
+     * Beans listed in {@code application.startup.deferred-beans} are only created on first use,
+     * keeping things like the OpenAPI documentation out of the startup path.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor deferredBeansPostProcessor(Environment environment) {
+        String[] deferredBeans = environment.getProperty("application.startup.deferred-beans", String[].class, new String[0]);
+
+        return beanFactory -> {
+            for (String name : deferredBeans) {
+                if (beanFactory.containsBeanDefinition(name)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Used by the AppCDS training run: the application closes itself once it is ready to serve requests.
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> exitAfterReadyListener(
+            @Value("${application.startup.exit-after-ready:false}") boolean exitAfterReady) {
+
+        return event -> {
+            if (exitAfterReady) {
+                log.info(" application ready, exiting as requested by application.startup.exit-after-ready");
+                System.exit(SpringApplication.exit(event.getApplicationContext()));
+            }
+        };
+    }
+}
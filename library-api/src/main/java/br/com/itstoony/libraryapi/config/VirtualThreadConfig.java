@@ -0,0 +1,46 @@
+package br.com.itstoony.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Runs servlet requests and the scheduled jobs on virtual threads. The mail executor follows the
+ * same flag, see {@link ExecutorConfig}.
+ * <p>
+ * Tomcat's thread pool no longer bounds how many requests hit the database at once, so the
+ * concurrency is bounded by {@code application.ratelimit.max-concurrent-requests} and requests wait
+ * for a connection at most {@code spring.datasource.hikari.connection-timeout}, see
+ * {@code application-virtual-threads.properties}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("application.threads.virtual.enabled requires Java 21 or newer, running on "
+                    + Runtime.version());
+        }
+        log.info(" running requests, scheduled jobs and mail dispatch on virtual threads");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                VirtualThreads.newThreadPerTaskExecutor(VirtualThreads.factory("http-virtual-")));
+    }
+
+    @Bean
+    public SchedulingConfigurer virtualThreadSchedulingConfigurer() {
+        return registrar -> registrar.setScheduler(
+                Executors.newSingleThreadScheduledExecutor(
+                        Workload.JOBS.threadFactory(VirtualThreads.factory("scheduling-virtual-"))));
+    }
+}
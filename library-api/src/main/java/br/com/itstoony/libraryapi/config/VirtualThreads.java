@@ -0,0 +1,53 @@
+package br.com.itstoony.libraryapi.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the Java 21 virtual thread API while the project is still compiled for Java 17.
+ * Only used when {@code application.threads.virtual.enabled} is set.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name(prefix, 0).factory()}
+     */
+    static ThreadFactory factory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            throw unsupported(ex);
+        }
+    }
+
+    /**
+     * {@code Executors.newThreadPerTaskExecutor(factory)}
+     */
+    static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException ex) {
+            throw unsupported(ex);
+        }
+    }
+
+    private static IllegalStateException unsupported(ReflectiveOperationException ex) {
+        Throwable cause = ex instanceof InvocationTargetException target ? target.getCause() : ex;
+        return new IllegalStateException("Virtual threads require Java 21 or newer, running on "
+                + Runtime.version(), cause);
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.itstoony.libraryapi.config;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * What a thread is working for, to hold it to the connection budget of that workload (see {@link BulkheadDataSource}).
+ * A request thread takes the workload of its request, the threads of the executors and of the scheduler keep theirs.
+ */
+public enum Workload {
+
+    API_READ("api-read"),
+    API_WRITE("api-write"),
+    // scheduled jobs
+    JOBS("jobs"),
+    // the loan event listeners, on the worker of LoanEventDispatcher
+    EVENTS("events"),
+    MAIL("mail");
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private final String key;
+
+    Workload(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Its name in the {@code application.bulkhead.*} properties and in the metric tags.
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return the workload of the current thread, null outside of any (the startup, for instance)
+     */
+    public static Workload current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes this the workload of the current thread, until {@link #restore} is called with what it returned.
+     */
+    public Workload enter() {
+        Workload previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(Workload previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            Workload previous = enter();
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Threads that run everything under this workload.
+     */
+    public ThreadFactory threadFactory(ThreadFactory factory) {
+        return task -> factory.newThread(wrap(task));
+    }
+}
@@ -1,8 +1,12 @@
 package br.com.itstoony.libraryapi.exception;
 
+/**
+ * Violation of a business rule. These are expected outcomes answered with 400, so no stack trace
+ * is filled and an instance can be created once and thrown again (see the services' constants).
+ */
 public class BusinessException extends RuntimeException {
 
     public BusinessException(String s) {
-        super(s);
+        super(s, null, false, false);
     }
 }
@@ -0,0 +1,49 @@
+package br.com.itstoony.libraryapi.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Publishes the queued and dropped events of every {@link RingBufferAsyncAppender} attached to the root logger.
+ */
+@Component
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof RingBufferAsyncAppender appender) {
+                List<Tag> tags = List.of(Tag.of("appender", appender.getName()));
+
+                Gauge.builder("library.logging.async.queued", appender, RingBufferAsyncAppender::getQueueSize)
+                        .tags(tags)
+                        .description("Logging events waiting to be written")
+                        .register(registry);
+                Gauge.builder("library.logging.async.capacity", appender, RingBufferAsyncAppender::getCapacity)
+                        .tags(tags)
+                        .register(registry);
+                FunctionCounter.builder("library.logging.async.dropped", appender, RingBufferAsyncAppender::getDroppedCount)
+                        .tags(tags)
+                        .description("Logging events discarded because the buffer was full")
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package br.com.itstoony.libraryapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands logging events to the attached appenders on a single background thread through a bounded
+ * {@link RingBuffer}, so the request thread never waits for the file (or its fsync).
+ * <p>
+ * When fewer than {@code discardingThreshold} slots are left, events of level INFO and below are dropped;
+ * WARN and ERROR wait for a free slot unless {@code neverBlock} is set, in which case they are dropped too.
+ * Dropped events are counted and exposed, together with the queue size, by {@link AsyncAppenderMetrics}.
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private int capacity = 8192;
+
+    private int discardingThreshold = -1;
+
+    private boolean neverBlock = false;
+
+    private boolean includeCallerData = false;
+
+    private int maxFlushTime = 1000;
+
+    private RingBuffer<ILoggingEvent> buffer;
+
+    private Thread worker;
+
+    private volatile boolean consumerParked;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender attached to [" + name + "]");
+            return;
+        }
+        buffer = new RingBuffer<>(capacity);
+        if (discardingThreshold < 0) {
+            discardingThreshold = buffer.capacity() / 5;
+        }
+
+        super.start();
+        worker = new Thread(this::drain, "async-log-" + name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Gave up flushing [" + name + "] after " + maxFlushTime + " ms, " + buffer.size() + " events lost");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (isDiscardable(event) && buffer.capacity() - buffer.size() <= discardingThreshold) {
+            dropped.increment();
+            return;
+        }
+
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+
+        while (!buffer.offer(event)) {
+            if (neverBlock || isDiscardable(event) || !isStarted()) {
+                dropped.increment();
+                return;
+            }
+            wakeConsumer();
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        if (consumerParked) {
+            wakeConsumer();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            ILoggingEvent event = buffer.poll();
+            if (event != null) {
+                appenders.appendLoopOnAppenders(event);
+                continue;
+            }
+            if (!isStarted()) {
+                return;
+            }
+            consumerParked = true;
+            if (buffer.size() == 0 && isStarted()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            consumerParked = false;
+        }
+    }
+
+    private void wakeConsumer() {
+        LockSupport.unpark(worker);
+    }
+
+    private static boolean isDiscardable(ILoggingEvent event) {
+        return event.getLevel().toInt() <= Level.INFO_INT;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer == null ? capacity : buffer.capacity();
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public boolean isNeverBlock() {
+        return neverBlock;
+    }
+
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.itstoony.libraryapi.model.repository;
+
+/**
+ * The isbn key of a book, read without loading the book itself.
+ */
+public record BookIsbnKey(Long id, Long isbnKey) {
+}
@@ -1,13 +1,47 @@
 package br.com.itstoony.libraryapi.model.repository;
 
 import br.com.itstoony.libraryapi.api.model.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
 
-    boolean existsByIsbn(String isbn);
+    boolean existsByIsbnKey(Long isbnKey);
 
-    Optional<Book> findByIsbn(String isbn);
+    /**
+     * Cached query: the ids it returns are kept in the book-by-isbn region and the books
+     * themselves come from the second-level cache.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "book-by-isbn")
+    })
+    Optional<Book> findByIsbnKey(Long isbnKey);
+
+    List<Book> findByIsbnKeyIn(Collection<Long> isbnKeys);
+
+    /**
+     * Reads the whole catalog page by page without offsets, for the in-memory indexes.
+     */
+    List<Book> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    @Query("SELECT b.id FROM Book b WHERE b.id > :id ORDER BY b.id")
+    List<Long> findIdsAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Reads the isbn keys of the whole catalog page by page, without loading the books into the second-level cache.
+     */
+    @Query("SELECT new br.com.itstoony.libraryapi.model.repository.BookIsbnKey(b.id, b.isbnKey) " +
+            "FROM Book b WHERE b.id > :id ORDER BY b.id")
+    List<BookIsbnKey> findIsbnKeysAfter(@Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,29 @@
+package br.com.itstoony.libraryapi.model.repository;
+
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ChangeRepository extends JpaRepository<Change, Long> {
+
+    List<Change> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    @Query("SELECT MAX(c.id) FROM Change c")
+    Long findLastId();
+
+    @Query("SELECT MIN(c.id) FROM Change c")
+    Long findFirstId();
+
+    @Query("SELECT MAX(c.id) FROM Change c WHERE c.occurredAt < :before")
+    Long findLastIdBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM Change c WHERE c.id < :id")
+    int deleteByIdLessThan(@Param("id") Long id);
+}
@@ -0,0 +1,14 @@
+package br.com.itstoony.libraryapi.model.repository;
+
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    List<Hold> findAllByOrderByIdAsc();
+
+    List<Hold> findByPromotedAtBefore(LocalDateTime deadline);
+}
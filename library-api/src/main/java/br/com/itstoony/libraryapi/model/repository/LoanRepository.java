@@ -2,13 +2,18 @@ package br.com.itstoony.libraryapi.model.repository;
 
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
@@ -17,11 +22,59 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
             "FROM Loan L WHERE L.book = :book AND (L.returned = NULL OR L.returned = FALSE ) ")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "SELECT l FROM Loan l join l.book b WHERE b.isbn = :isbn or l.customer = :custumer ")
-    Page<Loan> findByBookIsbnOrCostumer(@Param("isbn") String isbn, @Param("custumer") String custumer, Pageable pageRequest);
+    /**
+     * Both filters supplied: each branch of the union is resolved by its own index
+     * (book isbn key and loan customer) instead of an OR over the joined rows.
+     */
+    @Query(value = "SELECT l FROM Loan l WHERE l.id IN ( " +
+            "SELECT li.id FROM Loan li WHERE li.book.id IN (SELECT b.id FROM Book b WHERE b.isbnKey = :isbnKey) " +
+            "UNION " +
+            "SELECT lc.id FROM Loan lc WHERE lc.customer = :custumer )",
+            countQuery = "SELECT COUNT(l.id) FROM Loan l WHERE l.id IN ( " +
+            "SELECT li.id FROM Loan li WHERE li.book.id IN (SELECT b.id FROM Book b WHERE b.isbnKey = :isbnKey) " +
+            "UNION " +
+            "SELECT lc.id FROM Loan lc WHERE lc.customer = :custumer )")
+    Page<Loan> findByBookIsbnOrCostumer(@Param("isbnKey") Long isbnKey, @Param("custumer") String custumer, Pageable pageRequest);
+
+    @Query(value = "SELECT l FROM Loan l WHERE l.book.id IN (SELECT b.id FROM Book b WHERE b.isbnKey = :isbnKey)",
+            countQuery = "SELECT COUNT(l.id) FROM Loan l WHERE l.book.id IN (SELECT b.id FROM Book b WHERE b.isbnKey = :isbnKey)")
+    Page<Loan> findByBookIsbn(@Param("isbnKey") Long isbnKey, Pageable pageRequest);
+
+    @Query(value = "SELECT l FROM Loan l WHERE l.customer = :custumer",
+            countQuery = "SELECT COUNT(l.id) FROM Loan l WHERE l.customer = :custumer")
+    Page<Loan> findByCostumer(@Param("custumer") String custumer, Pageable pageRequest);
 
     Page<Loan> findByBook( Book book, Pageable pageable );
 
+    /**
+     * Sets the loan returned unless it already was, the row lock making concurrent returns wait for each other.
+     * Pending changes are not flushed first: the loan being returned may already be marked in the persistence context.
+     *
+     * @return 1 only for the call that returned the loan
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("UPDATE Loan l SET l.returned = TRUE WHERE l.id = :id AND (l.returned IS NULL OR l.returned = FALSE)")
+    int markReturned(@Param("id") Long id);
+
+    /**
+     * Records a late notice sent for the loan, unless it was returned meanwhile: only the notice columns are written,
+     * the rest of the loan may have changed since it was read for the mail.
+     *
+     * @return 0 when the loan is returned
+     */
+    @Modifying
+    @Query("UPDATE Loan l SET l.notificationLevel = :level, l.lastNotifiedAt = :notifiedAt, l.nextNotifyAt = :nextNotifyAt " +
+            "WHERE l.id = :id AND (l.returned IS NULL OR l.returned = FALSE)")
+    int markNotified(@Param("id") Long id, @Param("level") int level, @Param("notifiedAt") LocalDateTime notifiedAt,
+                     @Param("nextNotifyAt") LocalDate nextNotifyAt);
+
+    @Query("SELECT DISTINCT l.book.id FROM Loan l WHERE l.returned IS NULL OR l.returned = FALSE")
+    List<Long> findLoanedBookIds();
+
+    @Query(value = "SELECT l FROM Loan l WHERE l.nextNotifyAt <= :today AND ( l.returned IS NULL OR l.returned = FALSE)")
+    List<Loan> findDueForReminder(@Param("today") LocalDate today);
+
     @Query(value = " SELECT l FROM Loan l WHERE l.loanDate <= :threeDaysAgo AND ( l.returned IS NULL OR l.returned = FALSE)")
     List<Loan> findByLoansDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
 }
@@ -4,7 +4,10 @@ import br.com.itstoony.libraryapi.api.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 
 public interface BookService {
@@ -19,5 +22,20 @@ public interface BookService {
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    /**
+     * Like {@link #find(Book, Pageable)}, only the books that are available (not on loan) or only those on loan.
+     */
+    Page<Book> find(Book filter, boolean available, Pageable pageRequest);
+
+    /**
+     * {@link #find(Book, Pageable)}, or {@link #find(Book, boolean, Pageable)} when {@code available} is given,
+     * run on the JDBC executor.
+     */
+    CompletableFuture<Page<Book>> findAsync(Book filter, Boolean available, Pageable pageRequest);
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    List<Book> getByIds(Collection<Long> ids);
+
+    List<Book> getBooksByIsbns(Collection<String> isbns);
 }
@@ -0,0 +1,13 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+
+import java.util.List;
+
+public interface BookSuggestionService {
+
+    /**
+     * Books with a word of the title or author starting with {@code text}, answered from memory.
+     */
+    List<Book> suggest(String text, int limit);
+}
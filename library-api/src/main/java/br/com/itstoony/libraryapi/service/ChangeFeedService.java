@@ -0,0 +1,34 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ChangeFeedService {
+
+    /**
+     * Changes with a sequence after {@code since}, in sequence order, with the current state of the books
+     * and loans they changed (deleted ones are missing from the maps).
+     */
+    ChangePage getChanges(long since, int limit);
+
+    /**
+     * @return false when changes after {@code since} were already pruned, a sync from there has to start over
+     */
+    boolean isRetained(long since);
+
+    /**
+     * Sequence of the last change: where a sync started from a full export resumes.
+     */
+    long lastSequence();
+
+    /**
+     * @param next  the sequence to ask the next changes after
+     * @param more  whether more changes were already available
+     */
+    record ChangePage(List<Change> changes, Map<Long, Book> books, Map<Long, Loan> loans, long next, boolean more) {
+    }
+}
@@ -1,9 +1,20 @@
 package br.com.itstoony.libraryapi.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface EmailService {
 
     void sendMails(String message, List<String> mailsList);
 
+    /**
+     * Sends each address its own text, a batch of messages per SMTP connection.
+     *
+     * @param textByAddress text of the message for each recipient address
+     * @return the addresses the server accepted a message for, once all of them were sent
+     */
+    CompletableFuture<Set<String>> sendPersonalizedMails(String subject, Map<String, String> textByAddress);
+
 }
@@ -0,0 +1,36 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+
+import java.util.Optional;
+
+public interface HoldService {
+
+    /**
+     * Queues the customer for a loaned book.
+     */
+    Hold place(Hold hold);
+
+    Optional<Hold> getById(Long id);
+
+    /**
+     * @return the 1-based position of the hold in the queue of its book, 0 if it is no longer queued
+     */
+    int position(Hold hold);
+
+    void cancel(Hold hold);
+
+    /**
+     * Checks, in the transaction writing the loan, that the book is not reserved for another customer,
+     * and consumes the hold of the borrower if it was theirs.
+     */
+    void claim(Loan loan);
+
+    /**
+     * Reserves the returned book for its first holder and notifies them.
+     *
+     * @return the promoted hold, empty if nobody is waiting or the first holder was already promoted
+     */
+    Optional<Hold> promoteNext(Long bookId);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface LoanService {
 
@@ -21,5 +22,25 @@ public interface LoanService {
 
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
+    /**
+     * {@link #find(LoanFilterDTO, Pageable)} run on the JDBC executor.
+     */
+    CompletableFuture<Page<Loan>> findAsync(LoanFilterDTO filterDTO, Pageable pageable);
+
+    /**
+     * {@link #getLoansByBook(Book, Pageable)} run on the JDBC executor.
+     */
+    CompletableFuture<Page<Loan>> getLoansByBookAsync(Book book, Pageable pageable);
+
     List<Loan> getAllLateLoans();
+
+    /**
+     * Late loans whose next notice is due today or earlier.
+     */
+    List<Loan> getLoansDueForReminder();
+
+    /**
+     * Records that a notice was sent for the loans and schedules the next one.
+     */
+    void markNotified(List<Loan> loans);
 }
@@ -1,15 +1,22 @@
 package br.com.itstoony.libraryapi.service;
 
 import br.com.itstoony.libraryapi.api.model.entity.Loan;
-import lombok.RequiredArgsConstructor;
+import br.com.itstoony.libraryapi.service.support.MessageTemplate;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class ScheduleService {
 
     private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
@@ -18,16 +25,79 @@ public class ScheduleService {
 
     private final EmailService emailService;
 
-    @Value("${application.mail.lateLoans.message}")
-    private String message;
+    private final String subject;
 
+    private final MessageTemplate template;
+
+    private final MessageTemplate bookLine;
+
+    public ScheduleService(LoanService loanService,
+                           EmailService emailService,
+                           @Value("${application.mail.lateLoans.subject:Book with late loan}") String subject,
+                           @Value("${application.mail.lateLoans.template}") String template,
+                           @Value("${application.mail.lateLoans.book-line}") String bookLine) {
+        this.loanService = loanService;
+        this.emailService = emailService;
+        this.subject = subject;
+        this.template = MessageTemplate.compile(template);
+        this.bookLine = MessageTemplate.compile(bookLine);
+    }
+
+    /**
+     * Sends one mail per customer listing their late books whose notice is due today (see ReminderSchedule).
+     * The loans move on to their next notice once their mail was sent, from the mail thread: a loan whose mail
+     * failed, or that has no email, stays due and is tried again the next night.
+     */
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans() {
-        List<Loan> lateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = lateLoans.stream()
-                .map(Loan::getCustomerEmail)
+        List<Loan> dueLoans = loanService.getLoansDueForReminder();
+        if (dueLoans.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Loan>> loansByEmail = dueLoans.stream()
+                .filter(loan -> loan.getCustomerEmail() != null && !loan.getCustomerEmail().isBlank())
+                .collect(Collectors.groupingBy(
+                        loan -> loan.getCustomerEmail().trim().toLowerCase(Locale.ROOT),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+
+        if (loansByEmail.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> textByEmail = new LinkedHashMap<>();
+        loansByEmail.forEach((email, loans) -> textByEmail.put(email, render(loans)));
+
+        emailService.sendPersonalizedMails(subject, textByEmail)
+                .thenAccept(sent -> markNotified(loansByEmail, sent))
+                .exceptionally(ex -> {
+                    log.error(" failed to record the late loan notices sent", ex);
+                    return null;
+                });
+    }
+
+    private void markNotified(Map<String, List<Loan>> loansByEmail, Set<String> sent) {
+        List<Loan> notified = loansByEmail.entrySet().stream()
+                .filter(entry -> sent.contains(entry.getKey()))
+                .flatMap(entry -> entry.getValue().stream())
                 .toList();
+        if (!notified.isEmpty()) {
+            loanService.markNotified(notified);
+        }
+    }
+
+    private String render(List<Loan> loans) {
+        String books = loans.stream()
+                .map(loan -> bookLine.render(Map.of(
+                        "title", Objects.toString(loan.getBook().getTitle(), ""),
+                        "author", Objects.toString(loan.getBook().getAuthor(), ""),
+                        "loanDate", loan.getLoanDate())))
+                .collect(Collectors.joining("\n"));
 
-        emailService.sendMails(message, mailsList);
+        return template.render(Map.of(
+                "customer", Objects.toString(loans.get(0).getCustomer(), ""),
+                "count", loans.size(),
+                "books", books));
     }
 }
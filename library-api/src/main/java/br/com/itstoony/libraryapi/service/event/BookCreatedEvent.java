@@ -0,0 +1,13 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+
+import java.time.Instant;
+
+public record BookCreatedEvent(Long bookId, String isbn, String title, String author, Instant occurredAt)
+        implements BookEvent {
+
+    public static BookCreatedEvent of(Book book) {
+        return new BookCreatedEvent(book.getId(), book.getIsbn(), book.getTitle(), book.getAuthor(), Instant.now());
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+
+import java.time.Instant;
+
+public record BookDeletedEvent(Long bookId, String isbn, Instant occurredAt) implements BookEvent {
+
+    public static BookDeletedEvent of(Book book) {
+        return new BookDeletedEvent(book.getId(), book.getIsbn(), Instant.now());
+    }
+}
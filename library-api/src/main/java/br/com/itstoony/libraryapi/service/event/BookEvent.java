@@ -0,0 +1,17 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import java.time.Instant;
+
+/**
+ * A change to the book catalog, published by the book service inside the write transaction.
+ * In-memory views of the catalog listen to it with {@code @TransactionalEventListener} so they
+ * only apply changes that were committed.
+ */
+public sealed interface BookEvent permits BookCreatedEvent, BookUpdatedEvent, BookDeletedEvent {
+
+    Long bookId();
+
+    String isbn();
+
+    Instant occurredAt();
+}
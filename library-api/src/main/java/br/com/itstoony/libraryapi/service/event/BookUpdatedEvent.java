@@ -0,0 +1,13 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+
+import java.time.Instant;
+
+public record BookUpdatedEvent(Long bookId, String isbn, String title, String author, Instant occurredAt)
+        implements BookEvent {
+
+    public static BookUpdatedEvent of(Book book) {
+        return new BookUpdatedEvent(book.getId(), book.getIsbn(), book.getTitle(), book.getAuthor(), Instant.now());
+    }
+}
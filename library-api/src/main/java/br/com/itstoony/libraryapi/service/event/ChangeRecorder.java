@@ -0,0 +1,52 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import br.com.itstoony.libraryapi.model.repository.ChangeRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Appends the book and loan events to the change log before their transaction commits, so the change feed
+ * has every committed write and nothing else.
+ */
+@Component
+public class ChangeRecorder {
+
+    private final ChangeRepository repository;
+
+    public ChangeRecorder(ChangeRepository repository) {
+        this.repository = repository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        Change.Operation operation;
+        if (event instanceof BookCreatedEvent) {
+            operation = Change.Operation.CREATED;
+        } else if (event instanceof BookUpdatedEvent) {
+            operation = Change.Operation.UPDATED;
+        } else {
+            operation = Change.Operation.DELETED;
+        }
+        record(Change.Type.BOOK, event.bookId(), operation);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onLoanEvent(LoanEvent event) {
+        Change.Operation operation = event instanceof LoanCreatedEvent ? Change.Operation.CREATED : Change.Operation.RETURNED;
+        record(Change.Type.LOAN, event.loanId(), operation);
+    }
+
+    // the time of the insert, which the feed compares with its settle window, rather than the time of the event
+    private void record(Change.Type type, Long entityId, Change.Operation operation) {
+        repository.save(Change.builder()
+                .type(type)
+                .entityId(entityId)
+                .operation(operation)
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+}
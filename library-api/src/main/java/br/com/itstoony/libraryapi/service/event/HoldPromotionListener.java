@@ -0,0 +1,45 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.HoldService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Gives a returned book to the first customer holding it: waiting customers are notified once,
+ * instead of retrying the loan until the book is back. A book already on loan again when the
+ * event arrives stays with its borrower.
+ */
+@Component
+@Slf4j
+public class HoldPromotionListener implements LoanEventListener {
+
+    private final HoldService holdService;
+
+    private final LoanRepository loanRepository;
+
+    public HoldPromotionListener(HoldService holdService, LoanRepository loanRepository) {
+        this.holdService = holdService;
+        this.loanRepository = loanRepository;
+    }
+
+    @Override
+    public void onLoanEvents(List<LoanEvent> events) {
+        for (LoanEvent event : events) {
+            if (event instanceof LoanReturnedEvent returned) {
+                try {
+                    if (loanRepository.existsByBookAndNotReturned(Book.builder().id(returned.bookId()).build())) {
+                        log.debug(" book {} is on loan again, its holders keep waiting", returned.bookId());
+                        continue;
+                    }
+                    holdService.promoteNext(returned.bookId());
+                } catch (RuntimeException ex) {
+                    log.error(" failed to promote the next holder of book {}", returned.bookId(), ex);
+                }
+            }
+        }
+    }
+}
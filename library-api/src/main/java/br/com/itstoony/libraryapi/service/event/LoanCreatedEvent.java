@@ -0,0 +1,14 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+
+import java.time.Instant;
+
+public record LoanCreatedEvent(Long loanId, Long bookId, String isbn, String customer, Instant occurredAt)
+        implements LoanEvent {
+
+    public static LoanCreatedEvent of(Loan loan) {
+        return new LoanCreatedEvent(loan.getId(), loan.getBook().getId(), loan.getBook().getIsbn(),
+                loan.getCustomer(), Instant.now());
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import java.time.Instant;
+
+/**
+ * Something that happened to a loan. Published by the loan service inside the write transaction
+ * and delivered to the {@link LoanEventListener}s only after it commits.
+ */
+public sealed interface LoanEvent permits LoanCreatedEvent, LoanReturnedEvent {
+
+    Long loanId();
+
+    Long bookId();
+
+    String isbn();
+
+    String customer();
+
+    Instant occurredAt();
+}
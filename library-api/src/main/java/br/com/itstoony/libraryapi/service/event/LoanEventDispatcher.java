@@ -0,0 +1,174 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.config.Workload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands the loan events over to the {@link LoanEventListener}s once the write transaction commits.
+ * <p>
+ * Events wait in a bounded queue drained by a single worker, which delivers up to {@code batch-size}
+ * consecutive events per call, so listeners see the events one batch at a time and in publication order.
+ * When the queue is full the publishing thread waits for room (with a warning once it waited
+ * {@code offer-timeout-ms}), so a slow listener slows writers down instead of growing the backlog without limit.
+ * It waits at most {@code max-wait-ms} though, still holding the connection and the budget of its request: past that
+ * the event is dropped, logged and counted in {@code library.events.loan.dropped}, rather than hanging the writes.
+ */
+@Component
+@Slf4j
+public class LoanEventDispatcher {
+
+    private final ObjectProvider<LoanEventListener> listenersProvider;
+
+    private final Executor executor;
+
+    private final BlockingQueue<LoanEvent> queue;
+
+    private final int batchSize;
+
+    private final long offerTimeoutMillis;
+
+    private final long maxWaitMillis;
+
+    private final Counter dropped;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private volatile List<LoanEventListener> listeners;
+
+    @Autowired
+    public LoanEventDispatcher(ObjectProvider<LoanEventListener> listenersProvider,
+                               @Value("${application.events.loan.queue-capacity:10000}") int queueCapacity,
+                               @Value("${application.events.loan.batch-size:100}") int batchSize,
+                               @Value("${application.events.loan.offer-timeout-ms:50}") long offerTimeoutMillis,
+                               @Value("${application.events.loan.max-wait-ms:1000}") long maxWaitMillis,
+                               MeterRegistry meterRegistry) {
+        this(listenersProvider, newWorker(), queueCapacity, batchSize, offerTimeoutMillis, maxWaitMillis, meterRegistry);
+    }
+
+    LoanEventDispatcher(ObjectProvider<LoanEventListener> listenersProvider, Executor executor,
+                        int queueCapacity, int batchSize, long offerTimeoutMillis, long maxWaitMillis,
+                        MeterRegistry meterRegistry) {
+        this.listenersProvider = listenersProvider;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.dropped = Counter.builder("library.events.loan.dropped")
+                .description("Loan events dropped because the queue stayed full")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanEvent(LoanEvent event) {
+        if (!offer(event, offerTimeoutMillis)) {
+            log.warn(" loan event queue is full, waiting up to {} ms for the worker to queue {}", maxWaitMillis, event);
+            scheduleDrain();
+            if (!offer(event, maxWaitMillis)) {
+                dropped.increment();
+                log.error(" loan event queue still full, {} dropped", event);
+                return;
+            }
+        }
+        scheduleDrain();
+    }
+
+    public int pendingEvents() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<LoanEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            deliver(remaining);
+        }
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    private boolean offer(LoanEvent event, long timeoutMillis) {
+        try {
+            return queue.offer(event, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+            draining.set(false);
+            log.warn(" loan event worker rejected the drain, events stay queued", ex);
+        }
+    }
+
+    private void drain() {
+        List<LoanEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (queue.drainTo(batch, batchSize) > 0) {
+                deliver(List.copyOf(batch));
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // an event may have been queued after the last drainTo but before the flag was released
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void deliver(List<LoanEvent> events) {
+        for (LoanEventListener listener : listeners()) {
+            try {
+                listener.onLoanEvents(events);
+            } catch (RuntimeException ex) {
+                log.error(" loan event listener {} failed for {} events", listener.getClass().getSimpleName(), events.size(), ex);
+            }
+        }
+    }
+
+    private List<LoanEventListener> listeners() {
+        List<LoanEventListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenersProvider.orderedStream().toList();
+            listeners = resolved;
+        }
+        return resolved;
+    }
+
+    private static ExecutorService newWorker() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1),
+                Workload.EVENTS.threadFactory(new CustomizableThreadFactory("loan-events-")));
+    }
+}
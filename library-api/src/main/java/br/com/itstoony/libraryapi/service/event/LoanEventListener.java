@@ -0,0 +1,12 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import java.util.List;
+
+/**
+ * Asynchronous side effect of loan changes. Implementations run on the loan event executor,
+ * never on the request thread, and receive consecutive events in batches, in publication order.
+ */
+public interface LoanEventListener {
+
+    void onLoanEvents(List<LoanEvent> events);
+}
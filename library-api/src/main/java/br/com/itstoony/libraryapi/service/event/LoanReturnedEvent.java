@@ -0,0 +1,14 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+
+import java.time.Instant;
+
+public record LoanReturnedEvent(Long loanId, Long bookId, String isbn, String customer, Instant occurredAt)
+        implements LoanEvent {
+
+    public static LoanReturnedEvent of(Loan loan) {
+        return new LoanReturnedEvent(loan.getId(), loan.getBook().getId(), loan.getBook().getIsbn(),
+                loan.getCustomer(), Instant.now());
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class LoanStatisticsListener implements LoanEventListener {
+
+    private final Counter created;
+
+    private final Counter returned;
+
+    private final DistributionSummary batchSize;
+
+    public LoanStatisticsListener(MeterRegistry meterRegistry) {
+        this.created = Counter.builder("library.loans.created").register(meterRegistry);
+        this.returned = Counter.builder("library.loans.returned").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("library.loans.events.batch.size").register(meterRegistry);
+    }
+
+    @Override
+    public void onLoanEvents(List<LoanEvent> events) {
+        batchSize.record(events.size());
+        for (LoanEvent event : events) {
+            if (event instanceof LoanCreatedEvent) {
+                created.increment();
+            } else if (event instanceof LoanReturnedEvent) {
+                returned.increment();
+            }
+        }
+    }
+}
@@ -1,71 +1,276 @@
 package br.com.itstoony.libraryapi.service.imp;
 
 import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.config.ExecutorConfig;
 import br.com.itstoony.libraryapi.exception.BusinessException;
 import br.com.itstoony.libraryapi.model.repository.BookRepository;
 import br.com.itstoony.libraryapi.service.BookService;
+import br.com.itstoony.libraryapi.service.event.BookCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.BookDeletedEvent;
+import br.com.itstoony.libraryapi.service.event.BookUpdatedEvent;
+import br.com.itstoony.libraryapi.service.support.BookAvailabilityIndex;
+import br.com.itstoony.libraryapi.service.support.Isbn;
+import br.com.itstoony.libraryapi.service.support.IsbnBloomFilter;
+import br.com.itstoony.libraryapi.service.support.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final BusinessException ISBN_ALREADY_REGISTERED = new BusinessException("Isbn já cadastrado");
+
+    private static final BusinessException INVALID_ISBN = new BusinessException("Invalid isbn");
+
     private final BookRepository repository;
 
-    public BookServiceImpl(BookRepository repository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final IsbnBloomFilter isbnFilter;
+
+    private final BookAvailabilityIndex availabilityIndex;
+
+    private final SingleFlight<Long, Optional<Book>> lookupsById = new SingleFlight<>(BookServiceImpl::copyOf);
+
+    private final SingleFlight<Long, Optional<Book>> lookupsByIsbn = new SingleFlight<>(BookServiceImpl::copyOf);
+
+    public BookServiceImpl(BookRepository repository, MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher,
+                           IsbnBloomFilter isbnFilter, BookAvailabilityIndex availabilityIndex) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.isbnFilter = isbnFilter;
+        this.availabilityIndex = availabilityIndex;
+        registerLookupMetrics(meterRegistry, "id", lookupsById);
+        registerLookupMetrics(meterRegistry, "isbn", lookupsByIsbn);
     }
 
     @Override
+    @Transactional
     public Book save(Book book) {
-        if (repository.existsByIsbn(book.getIsbn()) ) {
-            throw new BusinessException("Isbn já cadastrado");
+        long isbnKey = normalizeIsbn(book);
+        if (isbnFilter.mightContain(isbnKey) && repository.existsByIsbnKey(isbnKey) ) {
+            throw ISBN_ALREADY_REGISTERED;
         }
-        return repository.save(book);
+        isbnFilter.add(isbnKey);
+        Book saved = saveUniqueIsbn(book);
+        eventPublisher.publishEvent(BookCreatedEvent.of(saved));
+        return saved;
+    }
+
+    /**
+     * The isbn check before a save isn't atomic with it: a concurrent save of the same isbn (or of its other
+     * form) is only stopped by the unique index, and is answered as the check would have been.
+     */
+    private Book saveUniqueIsbn(Book book) {
+        try {
+            return repository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException e) {
+            if (violates(e, Book.ISBN_KEY_INDEX)) {
+                throw ISBN_ALREADY_REGISTERED;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String index) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(index);
     }
 
     @Override
     public Optional<Book> getById(Long id) {
-        return this.repository.findById(id);
+        return lookupsById.execute(id, () -> this.repository.findById(id));
     }
 
+    /**
+     * Books are second-level cached: deletes and updates must go through the entity manager (not bulk or
+     * native statements) for the cached entry and the cached isbn queries to be evicted on commit.
+     */
     @Override
+    @Transactional
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Can't delete an unsaved book");
         }
 
         repository.delete(book);
+        eventPublisher.publishEvent(BookDeletedEvent.of(book));
     }
 
     @Override
+    @Transactional
     public Book update(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Can't update an unsaved book");
         }
 
-        return repository.save(book);
+        if (book.getIsbn() != null) {
+            isbnFilter.add(normalizeIsbn(book));
+        }
+        Book updated = saveUniqueIsbn(book);
+        eventPublisher.publishEvent(BookUpdatedEvent.of(updated));
+        return updated;
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        return repository.findAll(example(filter), pageRequest);
+    }
+
+    /**
+     * Without other criteria, in id order, the page comes straight from the availability index and only its
+     * books are read. Otherwise, or while the index isn't loaded, the query filters on a subquery of the open
+     * loans: the ids on loan are never sent as parameters, however many there are.
+     */
+    @Override
+    public Page<Book> find(Book filter, boolean available, Pageable pageRequest) {
+        if (availabilityIndex.isLoaded() && pageRequest.isPaged() && isEmpty(filter) && inIdOrder(pageRequest.getSort())) {
+            BookAvailabilityIndex.IdPage page = availabilityIndex.page(available, pageRequest.getOffset(), pageRequest.getPageSize());
+            Map<Long, Book> books = repository.findAllById(page.ids()).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            List<Book> content = page.ids().stream().map(books::get).filter(Objects::nonNull).toList();
+            return new PageImpl<>(content, pageRequest, page.total());
+        }
+        return repository.findAll(byExample(filter).and(onLoanQuery(available)), pageRequest);
+    }
+
+    @Override
+    @Async(ExecutorConfig.JDBC_TASK_EXECUTOR)
+    public CompletableFuture<Page<Book>> findAsync(Book filter, Boolean available, Pageable pageRequest) {
+        return CompletableFuture.completedFuture(available == null
+                ? find(filter, pageRequest)
+                : find(filter, available, pageRequest));
+    }
+
+    @Override
+    public Optional<Book> getBookByIsbn(String isbn) {
+        long isbnKey = Isbn.toKey(isbn);
+        if (isbnKey == Isbn.INVALID || !isbnFilter.mightContain(isbnKey)) {
+            return Optional.empty();
+        }
+        Optional<Book> book = lookupsByIsbn.execute(isbnKey, () -> repository.findByIsbnKey(isbnKey));
+        if (book.isEmpty()) {
+            isbnFilter.falsePositive();
+        }
+        return book;
+    }
 
-        Example<Book> example = Example.of(filter, ExampleMatcher
+    @Override
+    public List<Book> getByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return repository.findAllById(ids);
+    }
+
+    @Override
+    public List<Book> getBooksByIsbns(Collection<String> isbns) {
+        List<Long> candidates = isbns.stream()
+                .mapToLong(Isbn::toKey)
+                .filter(isbnKey -> isbnKey != Isbn.INVALID && isbnFilter.mightContain(isbnKey))
+                .distinct()
+                .boxed()
+                .toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        return repository.findByIsbnKeyIn(candidates);
+    }
+
+    private static Example<Book> example(Book filter) {
+        return Example.of(filter, ExampleMatcher
                 .matching()
                 .withIgnoreCase()
                 .withIgnoreNullValues()
                 .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING ));
-        return repository.findAll(example, pageRequest);
     }
 
-    @Override
-    public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+    private static Specification<Book> byExample(Book filter) {
+        Example<Book> example = example(filter);
+        return (root, query, cb) -> QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+    }
+
+    private static Specification<Book> onLoanQuery(boolean available) {
+        return (root, query, cb) -> {
+            Subquery<Long> loaned = query.subquery(Long.class);
+            Root<Loan> loan = loaned.from(Loan.class);
+            loaned.select(loan.get("book").get("id"))
+                    .where(cb.or(cb.isNull(loan.get("returned")), cb.isFalse(loan.get("returned"))));
+            Predicate onLoan = root.get("id").in(loaned);
+            return available ? cb.not(onLoan) : onLoan;
+        };
+    }
+
+    private static boolean isEmpty(Book filter) {
+        return filter.getId() == null && filter.getTitle() == null && filter.getAuthor() == null
+                && filter.getIsbn() == null && filter.getIsbnKey() == null;
+    }
+
+    private static boolean inIdOrder(Sort sort) {
+        return sort.stream().allMatch(order -> order.getProperty().equals("id") && order.isAscending());
+    }
+
+    private static Optional<Book> copyOf(Optional<Book> book) {
+        return book.map(found -> Book.builder()
+                .id(found.getId())
+                .title(found.getTitle())
+                .author(found.getAuthor())
+                .isbn(found.getIsbn())
+                .isbnKey(found.getIsbnKey())
+                .build());
+    }
+
+    /**
+     * Stores the isbn as its ISBN-13 with its key, whatever form it was given in.
+     */
+    private static long normalizeIsbn(Book book) {
+        long isbnKey = Isbn.toKey(book.getIsbn());
+        if (isbnKey == Isbn.INVALID) {
+            throw INVALID_ISBN;
+        }
+        book.setIsbn(Isbn.format(isbnKey));
+        book.setIsbnKey(isbnKey);
+        return isbnKey;
+    }
+
+    private static void registerLookupMetrics(MeterRegistry meterRegistry, String lookup, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("library.books.lookups", flight, SingleFlight::executions)
+                .description("Book lookups that reached the database")
+                .tag("by", lookup)
+                .register(meterRegistry);
+        FunctionCounter.builder("library.books.lookups.coalesced", flight, SingleFlight::collapsed)
+                .description("Book lookups answered by a concurrent identical lookup")
+                .tag("by", lookup)
+                .register(meterRegistry);
     }
 
 }
@@ -0,0 +1,78 @@
+package br.com.itstoony.libraryapi.service.imp;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.service.BookSuggestionService;
+import br.com.itstoony.libraryapi.service.event.BookCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.BookDeletedEvent;
+import br.com.itstoony.libraryapi.service.event.BookEvent;
+import br.com.itstoony.libraryapi.service.event.BookUpdatedEvent;
+import br.com.itstoony.libraryapi.service.support.PrefixIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps every book's title and author in a {@link PrefixIndex}: loaded from the database once at startup
+ * and then kept up to date by the committed {@link BookEvent}s.
+ */
+@Service
+@Slf4j
+public class BookSuggestionServiceImpl implements BookSuggestionService, SmartInitializingSingleton {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final BookRepository repository;
+
+    private final PrefixIndex<Book> index = new PrefixIndex<>();
+
+    public BookSuggestionServiceImpl(BookRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        Gauge.builder("library.books.autocomplete.books", index, PrefixIndex::size).register(meterRegistry);
+        Gauge.builder("library.books.autocomplete.keys", index, PrefixIndex::keys).register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        long lastId = 0;
+        List<Book> page;
+        do {
+            page = repository.findByIdGreaterThanOrderById(lastId, PageRequest.ofSize(LOAD_PAGE_SIZE));
+            for (Book book : page) {
+                index(book.getId(), book.getIsbn(), book.getTitle(), book.getAuthor());
+                lastId = book.getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        log.info("Autocomplete index loaded with {} books in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public List<Book> suggest(String text, int limit) {
+        return index.search(text, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        if (event instanceof BookCreatedEvent created) {
+            index(created.bookId(), created.isbn(), created.title(), created.author());
+        } else if (event instanceof BookUpdatedEvent updated) {
+            index(updated.bookId(), updated.isbn(), updated.title(), updated.author());
+        } else if (event instanceof BookDeletedEvent deleted) {
+            index.remove(deleted.bookId());
+        }
+    }
+
+    private void index(Long id, String isbn, String title, String author) {
+        Book suggestion = Book.builder().id(id).isbn(isbn).title(title).author(author).build();
+        index.put(id, suggestion, Arrays.asList(title, author));
+    }
+}
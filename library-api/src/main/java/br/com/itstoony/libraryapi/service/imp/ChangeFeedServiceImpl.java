@@ -0,0 +1,120 @@
+package br.com.itstoony.libraryapi.service.imp;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.ChangeRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.ChangeFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The change log is read by sequence. Sequences are taken at insert but become visible at commit, so a gap
+ * may be a write still committing: the feed stops before a gap until the change after it is older than the
+ * settle window, then it is taken for a rolled back write and skipped.
+ */
+@Service
+@Slf4j
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private final ChangeRepository repository;
+
+    private final BookRepository bookRepository;
+
+    private final LoanRepository loanRepository;
+
+    private final long settleMillis;
+
+    private final int retentionDays;
+
+    public ChangeFeedServiceImpl(ChangeRepository repository,
+                                 BookRepository bookRepository,
+                                 LoanRepository loanRepository,
+                                 @Value("${application.changes.settle-ms:5000}") long settleMillis,
+                                 @Value("${application.changes.retention-days:30}") int retentionDays) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.settleMillis = settleMillis;
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChangePage getChanges(long since, int limit) {
+        List<Change> read = repository.findByIdGreaterThanOrderById(since, PageRequest.ofSize(limit));
+        LocalDateTime settledBefore = LocalDateTime.now().minusNanos(settleMillis * 1_000_000);
+
+        List<Change> changes = new ArrayList<>(read.size());
+        long next = since;
+        for (Change change : read) {
+            if (change.getId() != next + 1 && change.getOccurredAt().isAfter(settledBefore)) {
+                break;
+            }
+            changes.add(change);
+            next = change.getId();
+        }
+
+        Map<Long, Book> books = byId(bookRepository.findAllById(idsOf(changes, Change.Type.BOOK)), Book::getId);
+        Map<Long, Loan> loans = byId(loanRepository.findAllById(idsOf(changes, Change.Type.LOAN)), Loan::getId);
+
+        // stopped at a gap: the caller waits instead of asking again right away
+        boolean more = read.size() == limit && changes.size() == read.size();
+        return new ChangePage(changes, books, loans, next, more);
+    }
+
+    @Override
+    public boolean isRetained(long since) {
+        Long first = repository.findFirstId();
+        return first == null || since >= first - 1;
+    }
+
+    @Override
+    public long lastSequence() {
+        Long last = repository.findLastId();
+        return last == null ? 0 : last;
+    }
+
+    /**
+     * Drops the changes older than the retention, but the last of them: the first sequence left is then
+     * the last one pruned, which tells {@link #isRetained} apart from a gap.
+     */
+    @Scheduled(initialDelayString = "${application.changes.prune-interval:PT6H}",
+            fixedDelayString = "${application.changes.prune-interval:PT6H}")
+    @Transactional
+    public void prune() {
+        Long lastPruned = repository.findLastIdBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (lastPruned == null) {
+            return;
+        }
+        int deleted = repository.deleteByIdLessThan(lastPruned);
+        if (deleted > 0) {
+            log.info("Pruned {} changes older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private static List<Long> idsOf(List<Change> changes, Change.Type type) {
+        return changes.stream()
+                .filter(change -> change.getType() == type && change.getOperation() != Change.Operation.DELETED)
+                .map(Change::getEntityId)
+                .distinct()
+                .toList();
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
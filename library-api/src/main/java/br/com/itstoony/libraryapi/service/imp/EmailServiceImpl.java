@@ -1,26 +1,41 @@
 package br.com.itstoony.libraryapi.service.imp;
 
+import br.com.itstoony.libraryapi.config.ExecutorConfig;
 import br.com.itstoony.libraryapi.service.EmailService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.*;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class EmailServiceImpl implements EmailService {
 
     @Value("${application.mail.default-sender}")
     private String sender;
 
+    @Value("${application.mail.batch-size:50}")
+    private int batchSize;
+
     private final JavaMailSender javaMailSender;
 
     @Override
+    @Async(ExecutorConfig.MAIL_TASK_EXECUTOR)
     public void sendMails(String message, List<String> mailsList) {
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
+        String[] mails = mailsList.stream().distinct().toArray(String[]::new);
 
         SimpleMailMessage mailMessage = new SimpleMailMessage();
         mailMessage.setFrom(sender);
@@ -31,4 +46,46 @@ public class EmailServiceImpl implements EmailService {
         javaMailSender.send(mailMessage);
     }
 
+    @Override
+    @Async(ExecutorConfig.MAIL_TASK_EXECUTOR)
+    public CompletableFuture<Set<String>> sendPersonalizedMails(String subject, Map<String, String> textByAddress) {
+        Set<String> sent = new HashSet<>(textByAddress.size());
+        List<SimpleMailMessage> batch = new ArrayList<>(Math.min(batchSize, textByAddress.size()));
+
+        for (Map.Entry<String, String> mail : textByAddress.entrySet()) {
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setFrom(sender);
+            mailMessage.setSubject(subject);
+            mailMessage.setText(mail.getValue());
+            mailMessage.setTo(mail.getKey());
+            batch.add(mailMessage);
+
+            if (batch.size() == batchSize) {
+                send(batch, sent);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch, sent);
+        }
+        return CompletableFuture.completedFuture(sent);
+    }
+
+    private void send(List<SimpleMailMessage> batch, Set<String> sent) {
+        // one connection for the whole batch; a failed batch doesn't stop the next ones
+        List<SimpleMailMessage> accepted = new ArrayList<>(batch);
+        try {
+            javaMailSender.send(batch.toArray(SimpleMailMessage[]::new));
+        } catch (MailException ex) {
+            // the server may have taken some of the messages before failing, the others are told apart
+            if (ex instanceof MailSendException sendException && !sendException.getFailedMessages().isEmpty()) {
+                accepted.removeAll(sendException.getFailedMessages().keySet());
+            } else {
+                accepted.clear();
+            }
+            log.error(" failed to send {} of {} mails", batch.size() - accepted.size(), batch.size(), ex);
+        }
+        accepted.forEach(message -> sent.add(message.getTo()[0]));
+    }
+
 }
@@ -0,0 +1,230 @@
+package br.com.itstoony.libraryapi.service.imp;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.exception.BusinessException;
+import br.com.itstoony.libraryapi.model.repository.HoldRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.EmailService;
+import br.com.itstoony.libraryapi.service.HoldService;
+import br.com.itstoony.libraryapi.service.support.BookAvailabilityIndex;
+import br.com.itstoony.libraryapi.service.support.HoldQueues;
+import br.com.itstoony.libraryapi.service.support.HoldQueues.Holder;
+import br.com.itstoony.libraryapi.service.support.MessageTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Hold queues are changed in memory together with the table, in the same transaction: a change is undone
+ * in memory if the transaction rolls back, and holders are notified only once it commits.
+ */
+@Service
+@Slf4j
+public class HoldServiceImpl implements HoldService {
+
+    private static final BusinessException BOOK_NOT_LOANED = new BusinessException("Book is not loaned, borrow it instead");
+
+    private static final BusinessException ALREADY_HOLDING = new BusinessException("Customer already holds this book");
+
+    private static final BusinessException BOOK_RESERVED = new BusinessException("Book reserved for another customer");
+
+    private final HoldRepository repository;
+
+    private final HoldQueues holdQueues;
+
+    private final LoanRepository loanRepository;
+
+    private final BookAvailabilityIndex availabilityIndex;
+
+    private final EmailService emailService;
+
+    private final int pickupDays;
+
+    private final String subject;
+
+    private final MessageTemplate template;
+
+    public HoldServiceImpl(HoldRepository repository,
+                           HoldQueues holdQueues,
+                           LoanRepository loanRepository,
+                           BookAvailabilityIndex availabilityIndex,
+                           EmailService emailService,
+                           @Value("${application.holds.pickup-days:3}") int pickupDays,
+                           @Value("${application.mail.holds.subject:Your book is back}") String subject,
+                           @Value("${application.mail.holds.template}") String template) {
+        this.repository = repository;
+        this.holdQueues = holdQueues;
+        this.loanRepository = loanRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.emailService = emailService;
+        this.pickupDays = pickupDays;
+        this.subject = subject;
+        this.template = MessageTemplate.compile(template);
+    }
+
+    @Override
+    @Transactional
+    public Hold place(Hold hold) {
+        Long bookId = hold.getBook().getId();
+        if (holdQueues.find(bookId, hold.getCustomer()).isPresent()) {
+            throw ALREADY_HOLDING;
+        }
+        // a returned book still reserved for someone can be held too
+        boolean loaned = isLoaned(hold.getBook());
+        if (!loaned && holdQueues.head(bookId).isEmpty()) {
+            throw BOOK_NOT_LOANED;
+        }
+
+        hold.setCreatedAt(LocalDateTime.now());
+        hold.setPromotedAt(null);
+        Hold saved = repository.save(hold);
+        holdQueues.add(bookId, Holder.of(saved));
+        onRollback(() -> holdQueues.remove(bookId, saved.getId()));
+
+        // the book may have come back before the first holder was promoted
+        if (!loaned) {
+            promoteNext(bookId);
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<Hold> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public int position(Hold hold) {
+        return holdQueues.position(hold.getBook().getId(), hold.getId());
+    }
+
+    @Override
+    @Transactional
+    public void cancel(Hold hold) {
+        Long bookId = hold.getBook().getId();
+        Optional<Holder> removed = holdQueues.remove(bookId, hold.getId());
+        removed.ifPresent(holder -> onRollback(() -> holdQueues.add(bookId, holder)));
+        repository.delete(hold);
+
+        if (removed.map(Holder::isPromoted).orElse(false)) {
+            promoteNext(bookId);
+        }
+    }
+
+    @Override
+    public void claim(Loan loan) {
+        Long bookId = loan.getBook().getId();
+        Optional<Holder> head = holdQueues.head(bookId);
+        if (head.isEmpty()) {
+            return;
+        }
+        Holder holder = head.get();
+        if (!Objects.equals(holder.customer(), loan.getCustomer())) {
+            throw BOOK_RESERVED;
+        }
+
+        holdQueues.remove(bookId, holder.holdId());
+        onRollback(() -> holdQueues.add(bookId, holder));
+        repository.deleteById(holder.holdId());
+    }
+
+    @Override
+    @Transactional
+    public Optional<Hold> promoteNext(Long bookId) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Holder> promoted = holdQueues.promoteHead(bookId, now);
+        if (promoted.isEmpty()) {
+            return Optional.empty();
+        }
+        Long holdId = promoted.get().holdId();
+        onRollback(() -> holdQueues.demote(bookId, holdId));
+
+        Optional<Hold> hold = repository.findById(holdId);
+        hold.ifPresent(found -> {
+            found.setPromotedAt(now);
+            Hold saved = repository.save(found);
+            afterCommit(() -> notifyHolder(saved));
+        });
+        return hold;
+    }
+
+    /**
+     * Holders that did not borrow the book in time lose it to the next one.
+     */
+    @Scheduled(initialDelayString = "${application.holds.expire-interval:PT1H}",
+            fixedDelayString = "${application.holds.expire-interval:PT1H}")
+    @Transactional
+    public void expirePickups() {
+        List<Hold> expired = repository.findByPromotedAtBefore(LocalDateTime.now().minusDays(pickupDays));
+        expired.forEach(this::cancel);
+        if (!expired.isEmpty()) {
+            log.info("{} holds expired without pickup", expired.size());
+        }
+    }
+
+    private void notifyHolder(Hold hold) {
+        String email = hold.getCustomerEmail();
+        if (email == null || email.isBlank()) {
+            return;
+        }
+        Book book = hold.getBook();
+        String text = template.render(Map.of(
+                "customer", Objects.toString(hold.getCustomer(), ""),
+                "title", Objects.toString(book.getTitle(), ""),
+                "author", Objects.toString(book.getAuthor(), ""),
+                "until", hold.getPromotedAt().plusDays(pickupDays).toLocalDate()));
+
+        try {
+            emailService.sendPersonalizedMails(subject, Map.of(email, text));
+        } catch (TaskRejectedException ex) {
+            // the book stays reserved for the holder until the pickup expires, only the mail is lost
+            log.error(" mail queue full, holder of hold {} not notified", hold.getId(), ex);
+        }
+    }
+
+    private boolean isLoaned(Book book) {
+        if (availabilityIndex.isLoaded()) {
+            return availabilityIndex.isLoaned(book.getId());
+        }
+        return loanRepository.existsByBookAndNotReturned(book);
+    }
+
+    private static void onRollback(Runnable undo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        undo.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -3,32 +3,76 @@ package br.com.itstoony.libraryapi.service.imp;
 import br.com.itstoony.libraryapi.api.dto.LoanFilterDTO;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.config.ExecutorConfig;
 import br.com.itstoony.libraryapi.exception.BusinessException;
 import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.HoldService;
 import br.com.itstoony.libraryapi.service.LoanService;
+import br.com.itstoony.libraryapi.service.event.LoanCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.LoanReturnedEvent;
+import br.com.itstoony.libraryapi.service.support.BookAvailabilityIndex;
+import br.com.itstoony.libraryapi.service.support.Isbn;
+import br.com.itstoony.libraryapi.service.support.ReminderSchedule;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    private static final BusinessException BOOK_ALREADY_LOANED = new BusinessException("Book already loaned");
+
     private final LoanRepository repository;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReminderSchedule reminderSchedule;
+
+    private final BookAvailabilityIndex availabilityIndex;
+
+    private final HoldService holdService;
+
+    public LoanServiceImpl(LoanRepository repository, ApplicationEventPublisher eventPublisher,
+                           ReminderSchedule reminderSchedule, BookAvailabilityIndex availabilityIndex,
+                           HoldService holdService) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.reminderSchedule = reminderSchedule;
+        this.availabilityIndex = availabilityIndex;
+        this.holdService = holdService;
     }
 
+    /**
+     * The book is marked as loaned in the availability index before the loan is written: a second loan of it,
+     * even a concurrent one on this instance, is refused without a query. The index is only a pre-check, the
+     * open loans in the database still decide. A book with holds goes only to its first holder.
+     */
     @Override
+    @Transactional
     public Loan save(Loan loan) {
+        if (availabilityIndex.isLoaded() && !availabilityIndex.markLoaned(loan.getBook().getId())) {
+            throw BOOK_ALREADY_LOANED;
+        }
         if (repository.existsByBookAndNotReturned(loan.getBook())) {
-            throw new BusinessException("Book already loaned");
+            throw BOOK_ALREADY_LOANED;
+        }
+        holdService.claim(loan);
+        if (loan.getLoanDate() != null) {
+            loan.setNotificationLevel(0);
+            loan.setNextNotifyAt(reminderSchedule.reminderDate(loan.getLoanDate(), 0));
         }
-        return repository.save(loan);
+        Loan saved = repository.save(loan);
+        eventPublisher.publishEvent(LoanCreatedEvent.of(saved));
+        return saved;
     }
 
     @Override
@@ -36,14 +80,42 @@ public class LoanServiceImpl implements LoanService {
         return repository.findById(id);
     }
 
+    /**
+     * The return of the loan is published only by the update that actually returned it, as told by the database:
+     * saving a loan that was already returned publishes nothing.
+     */
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        boolean returning = false;
+        if (Boolean.TRUE.equals(loan.getReturned())) {
+            loan.setNextNotifyAt(null);
+            returning = repository.markReturned(loan.getId()) == 1;
+        }
+        Loan updated = repository.save(loan);
+        if (returning) {
+            eventPublisher.publishEvent(LoanReturnedEvent.of(updated));
+        }
+        return updated;
     }
 
     @Override
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCostumer(filterDTO.getIsbn(), filterDTO.getCostumer(), pageable);
+        long isbnKey = Isbn.toKey(filterDTO.getIsbn());
+        String costumer = filterDTO.getCostumer();
+        boolean byIsbn = isbnKey != Isbn.INVALID;
+        boolean byCostumer = costumer != null && !costumer.isBlank();
+
+        if (byIsbn && byCostumer) {
+            return repository.findByBookIsbnOrCostumer(isbnKey, costumer, pageable);
+        }
+        if (byIsbn) {
+            return repository.findByBookIsbn(isbnKey, pageable);
+        }
+        if (byCostumer) {
+            return repository.findByCostumer(costumer, pageable);
+        }
+        return Page.empty(pageable);
     }
 
     @Override
@@ -51,11 +123,49 @@ public class LoanServiceImpl implements LoanService {
         return repository.findByBook(book, pageable);
     }
 
+    @Override
+    @Async(ExecutorConfig.JDBC_TASK_EXECUTOR)
+    public CompletableFuture<Page<Loan>> findAsync(LoanFilterDTO filterDTO, Pageable pageable) {
+        return CompletableFuture.completedFuture(find(filterDTO, pageable));
+    }
+
+    @Override
+    @Async(ExecutorConfig.JDBC_TASK_EXECUTOR)
+    public CompletableFuture<Page<Loan>> getLoansByBookAsync(Book book, Pageable pageable) {
+        return CompletableFuture.completedFuture(getLoansByBook(book, pageable));
+    }
+
     @Override
     public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
+        LocalDate threeDaysAgo = LocalDate.now().minusDays(reminderSchedule.getLoanDays());
         return repository.findByLoansDateLessThanAndNotReturned(threeDaysAgo);
     }
 
+    @Override
+    public List<Loan> getLoansDueForReminder() {
+        return repository.findDueForReminder(LocalDate.now());
+    }
+
+    /**
+     * The loans were read before their mail was sent: only their notice is written, by id, and a loan returned
+     * meanwhile is left as it is.
+     */
+    @Override
+    @Transactional
+    public void markNotified(List<Loan> loans) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+
+        for (Loan loan : loans) {
+            int level = loan.getNotificationLevel() == null ? 1 : loan.getNotificationLevel() + 1;
+            LocalDate next = reminderSchedule.reminderDate(loan.getLoanDate(), level);
+
+            // after a missed run the scheduled day may already have passed: never notify twice on the same day
+            if (next != null && !next.isAfter(today)) {
+                next = today.plusDays(1);
+            }
+            repository.markNotified(loan.getId(), level, now, next);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Set of numbers (keys) that can answer "definitely not present" without holding the numbers: each value sets
+ * {@code hashFunctions} bits of a bit array, a value is possibly present only if all its bits are set.
+ * Never gives a false negative; the false positive rate grows as bits get set, so values can't be removed
+ * and the filter is sized up front for the number of values it will hold.
+ * <p>
+ * Adds and lookups can run concurrently.
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final LongAdder bitCount = new LongAdder();
+
+    private BloomFilter(long bitSize, int hashFunctions) {
+        int wordCount = Math.toIntExact((bitSize + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount << 6;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * @param expectedInsertions how many values the filter will hold
+     * @param fpp                false positive probability once it holds them, between 0 and 1 exclusive
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1: " + fpp);
+        }
+        long bits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (LN2 * LN2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * LN2));
+        return new BloomFilter(bits, hashes);
+    }
+
+    /**
+     * @return true if the value was not already possibly present
+     */
+    public boolean put(long value) {
+        long hash1 = mix(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        boolean changed = false;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            changed |= set(index(hash1 + i * hash2));
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long value) {
+        long hash1 = mix(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hash1 + i * hash2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long sizeInBytes() {
+        return bitSize >>> 3;
+    }
+
+    /**
+     * @return false positive probability for the values added so far
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.sum() / bitSize, hashFunctions);
+    }
+
+    private boolean set(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+
+        bitCount.increment();
+        return true;
+    }
+
+    private long index(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bitSize;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,200 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.event.BookCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.BookDeletedEvent;
+import br.com.itstoony.libraryapi.service.event.BookEvent;
+import br.com.itstoony.libraryapi.service.event.LoanReturnedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Compressed bitmaps of the ids of every book and of the books currently on loan, loaded at startup,
+ * so that "which books are available" is a bitmap difference instead of a join with the open loans.
+ * <p>
+ * A loan marks its book before it is written (and unmarks it if the transaction rolls back), which makes the
+ * mark a fast pre-check against double loans, the database having the last word; returns (published only for
+ * the loan that was actually returned) and book changes are applied once committed.
+ * Until it is loaded the index knows nothing and callers fall back to the database.
+ */
+@Component
+@Slf4j
+public class BookAvailabilityIndex implements SmartInitializingSingleton {
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final BookRepository bookRepository;
+
+    private final LoanRepository loanRepository;
+
+    private final Roaring64NavigableMap books = new Roaring64NavigableMap();
+
+    private final Roaring64NavigableMap loaned = new Roaring64NavigableMap();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    public BookAvailabilityIndex(BookRepository bookRepository, LoanRepository loanRepository, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+
+        Gauge.builder("library.books.availability.books", this, index -> index.read(index.books::getLongCardinality))
+                .register(meterRegistry);
+        Gauge.builder("library.books.availability.loaned", this, index -> index.read(index.loaned::getLongCardinality))
+                .register(meterRegistry);
+        Gauge.builder("library.books.availability.size", this,
+                        index -> index.read(() -> index.books.getLongSizeInBytes() + index.loaned.getLongSizeInBytes()))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads under the write lock, loans taken meanwhile wait for it instead of being missed.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            books.clear();
+            loaned.clear();
+
+            long lastId = 0;
+            List<Long> page;
+            do {
+                page = bookRepository.findIdsAfter(lastId, PageRequest.ofSize(LOAD_PAGE_SIZE));
+                page.forEach(books::addLong);
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1);
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+
+            loanRepository.findLoanedBookIds().forEach(loaned::addLong);
+            books.runOptimize();
+            loaned.runOptimize();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Availability index loaded with {} books, {} on loan, in {} ms", read(books::getLongCardinality),
+                read(loaned::getLongCardinality), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isLoaned(long bookId) {
+        return read(() -> loaned.contains(bookId));
+    }
+
+    /**
+     * Marks the book as loaned, unless it already is. Called in the transaction writing the loan, the mark
+     * is removed if it rolls back.
+     *
+     * @return false if the book is already on loan
+     */
+    public boolean markLoaned(long bookId) {
+        lock.writeLock().lock();
+        try {
+            if (loaned.contains(bookId)) {
+                return false;
+            }
+            loaned.addLong(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        unmark(bookId);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanReturned(LoanReturnedEvent event) {
+        unmark(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event instanceof BookCreatedEvent created) {
+                books.addLong(created.bookId());
+            } else if (event instanceof BookDeletedEvent deleted) {
+                books.removeLong(deleted.bookId());
+                loaned.removeLong(deleted.bookId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the available (or loaned) books ranked from {@code offset}, at most {@code size},
+     * in id order, with the total count of such books
+     */
+    public IdPage page(boolean available, long offset, int size) {
+        return read(() -> {
+            Roaring64NavigableMap selected = new Roaring64NavigableMap();
+            selected.or(available ? books : loaned);
+            if (available) {
+                selected.andNot(loaned);
+            } else {
+                selected.and(books);
+            }
+
+            long total = selected.getLongCardinality();
+            List<Long> ids = new ArrayList<>(size);
+            for (long rank = offset; rank < total && ids.size() < size; rank++) {
+                ids.add(selected.select(rank));
+            }
+            return new IdPage(ids, total);
+        });
+    }
+
+    public record IdPage(List<Long> ids, long total) {
+    }
+
+    private void unmark(long bookId) {
+        lock.writeLock().lock();
+        try {
+            loaned.removeLong(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.model.repository.HoldRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory view of the hold table: the FIFO queue of holders of each book, loaded at startup.
+ * <p>
+ * A queue is an immutable list replaced on every change, so reading a position or the head takes no lock
+ * and changes to the holds of one book are serialized by the map. Holds are only placed on loaned books,
+ * the view is small enough to be loaded at once.
+ */
+@Component
+@Slf4j
+public class HoldQueues implements SmartInitializingSingleton {
+
+    private final HoldRepository repository;
+
+    private final Map<Long, List<Holder>> queues = new ConcurrentHashMap<>();
+
+    public HoldQueues(HoldRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+
+        Gauge.builder("library.holds.books", queues, Map::size).register(meterRegistry);
+        Gauge.builder("library.holds.waiting", this, HoldQueues::size).register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        queues.clear();
+        List<Hold> holds = repository.findAllByOrderByIdAsc();
+        holds.forEach(hold -> add(hold.getBook().getId(), Holder.of(hold)));
+        log.info("Hold queues loaded with {} holds of {} books", holds.size(), queues.size());
+    }
+
+    public record Holder(Long holdId, String customer, LocalDateTime promotedAt) {
+
+        public static Holder of(Hold hold) {
+            return new Holder(hold.getId(), hold.getCustomer(), hold.getPromotedAt());
+        }
+
+        public boolean isPromoted() {
+            return promotedAt != null;
+        }
+    }
+
+    /**
+     * Adds the holder in hold id order, which is the order the holds were placed in.
+     */
+    public void add(Long bookId, Holder holder) {
+        queues.compute(bookId, (id, queue) -> {
+            List<Holder> changed = queue == null ? new ArrayList<>(1) : new ArrayList<>(queue);
+            int index = changed.size();
+            while (index > 0 && changed.get(index - 1).holdId() > holder.holdId()) {
+                index--;
+            }
+            changed.add(index, holder);
+            return List.copyOf(changed);
+        });
+    }
+
+    /**
+     * @return the removed holder, empty if the hold was not queued
+     */
+    public Optional<Holder> remove(Long bookId, Long holdId) {
+        AtomicReference<Holder> removed = new AtomicReference<>();
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            List<Holder> changed = new ArrayList<>(queue);
+            changed.removeIf(holder -> {
+                if (holder.holdId().equals(holdId)) {
+                    removed.set(holder);
+                    return true;
+                }
+                return false;
+            });
+            return changed.isEmpty() ? null : List.copyOf(changed);
+        });
+        return Optional.ofNullable(removed.get());
+    }
+
+    public Optional<Holder> head(Long bookId) {
+        List<Holder> queue = queues.get(bookId);
+        return queue == null ? Optional.empty() : Optional.of(queue.get(0));
+    }
+
+    public Optional<Holder> find(Long bookId, String customer) {
+        return queues.getOrDefault(bookId, List.of()).stream()
+                .filter(holder -> holder.customer().equals(customer))
+                .findFirst();
+    }
+
+    /**
+     * @return the 1-based position of the hold in the queue of its book, 0 if it is not queued
+     */
+    public int position(Long bookId, Long holdId) {
+        List<Holder> queue = queues.getOrDefault(bookId, List.of());
+        for (int i = 0; i < queue.size(); i++) {
+            if (queue.get(i).holdId().equals(holdId)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Promotes the first holder of the book, unless it already was: only one caller gets it.
+     *
+     * @return the promoted holder, empty if there is none or it had already been promoted
+     */
+    public Optional<Holder> promoteHead(Long bookId, LocalDateTime promotedAt) {
+        AtomicReference<Holder> promoted = new AtomicReference<>();
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            Holder head = queue.get(0);
+            if (head.isPromoted()) {
+                return queue;
+            }
+            promoted.set(new Holder(head.holdId(), head.customer(), promotedAt));
+            return replaceHead(queue, promoted.get());
+        });
+        return Optional.ofNullable(promoted.get());
+    }
+
+    /**
+     * Undoes {@link #promoteHead} for a promotion that was not written.
+     */
+    public void demote(Long bookId, Long holdId) {
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            Holder head = queue.get(0);
+            if (!head.holdId().equals(holdId)) {
+                return queue;
+            }
+            return replaceHead(queue, new Holder(head.holdId(), head.customer(), null));
+        });
+    }
+
+    public int size() {
+        return queues.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static List<Holder> replaceHead(List<Holder> queue, Holder head) {
+        List<Holder> changed = new ArrayList<>(queue);
+        changed.set(0, head);
+        return List.copyOf(changed);
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.itstoony.libraryapi.service.support;
+
+/**
+ * ISBN-10 and ISBN-13 parsing: hyphens and spaces are ignored, the check digit must be right and ISBN-10s
+ * are converted to their ISBN-13. The ISBN-13 of a book is kept as a number, its key, so the same book
+ * written in any of its forms ("978-0-13-468599-1", "9780134685991", "0-13-468599-7") has the same key.
+ */
+public final class Isbn {
+
+    /**
+     * Key of anything that isn't a valid isbn; keys are 13 digit numbers, never negative.
+     */
+    public static final long INVALID = -1;
+
+    private static final long PREFIX_978 = 978_000_000_000L;
+
+    private Isbn() {
+    }
+
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        long digits = 0;
+        int count = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean checkX = false;
+
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (checkX || count == 13) {
+                return INVALID;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                digit = 10;
+                checkX = true;
+            } else {
+                return INVALID;
+            }
+            digits = digits * 10 + digit;
+            sum10 += (10 - count) * digit;
+            sum13 += (count % 2 == 0 ? 1 : 3) * digit;
+            count++;
+        }
+
+        if (count == 10) {
+            return sum10 % 11 == 0 ? fromIsbn10((checkX ? digits - 10 : digits) / 10) : INVALID;
+        }
+        if (count == 13 && !checkX && sum13 % 10 == 0) {
+            long prefix = digits / 10_000_000_000L;
+            return prefix == 978 || prefix == 979 ? digits : INVALID;
+        }
+        return INVALID;
+    }
+
+    public static boolean isValid(String isbn) {
+        return toKey(isbn) != INVALID;
+    }
+
+    /**
+     * @return the ISBN-13 of a key, digits only
+     */
+    public static String format(long key) {
+        return Long.toString(key);
+    }
+
+    /**
+     * @return the ISBN-13 of an isbn in any of its forms, digits only, or null when it isn't valid
+     */
+    public static String normalize(String isbn) {
+        long key = toKey(isbn);
+        return key == INVALID ? null : format(key);
+    }
+
+    private static long fromIsbn10(long firstNineDigits) {
+        long withoutCheck = PREFIX_978 + firstNineDigits;
+        int sum = 0;
+        long rest = withoutCheck;
+        for (int position = 11; position >= 0; position--) {
+            sum += (position % 2 == 0 ? 1 : 3) * (int) (rest % 10);
+            rest /= 10;
+        }
+        return withoutCheck * 10 + (10 - sum % 10) % 10;
+    }
+}
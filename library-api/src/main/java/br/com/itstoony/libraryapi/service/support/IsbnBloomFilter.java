@@ -0,0 +1,166 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import br.com.itstoony.libraryapi.model.repository.BookIsbnKey;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link BloomFilter} of the isbn keys (see {@link Isbn}) of every book, so that lookups of isbns we don't
+ * hold are answered without a query. Until it is first loaded every isbn is possibly present.
+ * <p>
+ * Isbns are added before the book is saved, a rolled back save only costs a false positive. Removed isbns
+ * stay in the filter until it is rebuilt from the database, every {@code rebuild-interval}, sized for twice
+ * the books it finds (at least {@code expected-insertions}) so the catalog can grow meanwhile. Isbns added
+ * since the previous rebuild started are replayed into the new filter, the scan may not see books whose
+ * transactions were still open.
+ */
+@Component
+@Slf4j
+public class IsbnBloomFilter implements SmartInitializingSingleton {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final BookRepository repository;
+
+    private final long expectedInsertions;
+
+    private final double fpp;
+
+    private volatile BloomFilter filter;
+
+    private volatile boolean loaded;
+
+    private Set<Long> addedThisPeriod = new HashSet<>();
+
+    private Set<Long> addedLastPeriod = new HashSet<>();
+
+    private final Object lock = new Object();
+
+    private final Counter absent;
+
+    private final Counter possiblyPresent;
+
+    private final Counter falsePositives;
+
+    public IsbnBloomFilter(BookRepository repository, MeterRegistry meterRegistry,
+                           @Value("${application.books.isbn-filter.expected-insertions:100000}") long expectedInsertions,
+                           @Value("${application.books.isbn-filter.fpp:0.01}") double fpp) {
+        this.repository = repository;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.filter = BloomFilter.create(expectedInsertions, fpp);
+
+        Gauge.builder("library.books.isbn-filter.size", this, f -> f.filter.sizeInBytes())
+                .description("Memory taken by the isbn filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("library.books.isbn-filter.expected-fpp", this, f -> f.filter.expectedFpp())
+                .description("False positive probability of the isbn filter for the isbns it holds")
+                .register(meterRegistry);
+        this.absent = checks(meterRegistry, "absent");
+        this.possiblyPresent = checks(meterRegistry, "possibly-present");
+        this.falsePositives = Counter.builder("library.books.isbn-filter.false-positives")
+                .description("Isbns the filter let through that were not found")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * @return false only if no book has this isbn key
+     */
+    public boolean mightContain(long isbnKey) {
+        if (!loaded) {
+            return true;
+        }
+        if (filter.mightContain(isbnKey)) {
+            possiblyPresent.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    public void add(long isbnKey) {
+        synchronized (lock) {
+            addedThisPeriod.add(isbnKey);
+            filter.put(isbnKey);
+        }
+    }
+
+    /**
+     * Records that an isbn the filter let through was not found.
+     */
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    @Scheduled(initialDelayString = "${application.books.isbn-filter.rebuild-interval:PT6H}",
+            fixedDelayString = "${application.books.isbn-filter.rebuild-interval:PT6H}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        Set<Long> addedBefore;
+        synchronized (lock) {
+            addedBefore = addedThisPeriod;
+            addedThisPeriod = new HashSet<>();
+        }
+
+        BloomFilter rebuilt;
+        long books = 0;
+        try {
+            rebuilt = BloomFilter.create(Math.max(expectedInsertions, repository.count() * 2), fpp);
+            long lastId = 0;
+            List<BookIsbnKey> page;
+            do {
+                page = repository.findIsbnKeysAfter(lastId, PageRequest.ofSize(LOAD_PAGE_SIZE));
+                for (BookIsbnKey book : page) {
+                    if (book.isbnKey() != null) {
+                        rebuilt.put(book.isbnKey());
+                    }
+                    lastId = book.id();
+                }
+                books += page.size();
+            } while (page.size() == LOAD_PAGE_SIZE);
+        } catch (RuntimeException ex) {
+            synchronized (lock) {
+                addedThisPeriod.addAll(addedBefore);
+            }
+            log.warn("Could not rebuild the isbn filter, keeping the current one", ex);
+            return;
+        }
+
+        synchronized (lock) {
+            addedLastPeriod.forEach(rebuilt::put);
+            addedBefore.forEach(rebuilt::put);
+            addedThisPeriod.forEach(rebuilt::put);
+            addedLastPeriod = addedBefore;
+            filter = rebuilt;
+            loaded = true;
+        }
+        log.info("Isbn filter rebuilt with {} books in {} ms: {} bytes, {} hash functions, expected fpp {}",
+                books, (System.nanoTime() - start) / 1_000_000, rebuilt.sizeInBytes(), rebuilt.hashFunctions(),
+                String.format("%.5f", rebuilt.expectedFpp()));
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("library.books.isbn-filter.checks")
+                .description("Isbn lookups checked against the isbn filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
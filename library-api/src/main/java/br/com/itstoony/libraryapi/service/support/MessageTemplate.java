@@ -0,0 +1,56 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text with {@code {name}} placeholders, parsed once into literal and placeholder parts so that
+ * rendering it for every recipient is only a sequence of appends.
+ * Placeholders without a value are rendered empty.
+ */
+public final class MessageTemplate {
+
+    private final List<String> literals;
+
+    private final List<String> names;
+
+    private final int literalsLength;
+
+    private MessageTemplate(List<String> literals, List<String> names) {
+        this.literals = literals;
+        this.names = names;
+        this.literalsLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    public static MessageTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = template.indexOf('{', position);
+            int close = open < 0 ? -1 : template.indexOf('}', open);
+            if (close < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            literals.add(template.substring(position, open));
+            names.add(template.substring(open + 1, close).trim());
+            position = close + 1;
+        }
+        return new MessageTemplate(List.copyOf(literals), List.copyOf(names));
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder text = new StringBuilder(literalsLength + 32 * names.size());
+        for (int i = 0; i < names.size(); i++) {
+            text.append(literals.get(i));
+            Object value = values.get(names.get(i));
+            if (value != null) {
+                text.append(value);
+            }
+        }
+        return text.append(literals.get(names.size())).toString();
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix search over short texts (titles, author names): every text is normalized (lower case,
+ * no accents or punctuation) and indexed from the start of each of its words, in a sorted map where all
+ * the keys starting with a prefix are one contiguous range. "sen", "senhor dos" and "aneis" all find
+ * "O Senhor dos Anéis".
+ * <p>
+ * Searches never lock; writes are serialized, which is fine for a catalog that changes far less often
+ * than it is searched.
+ *
+ * @param <T> what a search returns for each indexed id
+ */
+public class PrefixIndex<T> {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MAX_KEY_LENGTH = 48;
+
+    private final ConcurrentSkipListMap<String, Set<Long>> idsByKey = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    private record Entry<T>(T value, Set<String> keys) {
+    }
+
+    public synchronized void put(long id, T value, Collection<String> texts) {
+        Set<String> keys = keysOf(texts);
+        Entry<T> previous = entries.put(id, new Entry<>(value, keys));
+
+        if (previous != null) {
+            for (String key : previous.keys()) {
+                if (!keys.contains(key)) {
+                    unlink(key, id);
+                }
+            }
+        }
+        for (String key : keys) {
+            idsByKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public synchronized void remove(long id) {
+        Entry<T> previous = entries.remove(id);
+        if (previous != null) {
+            previous.keys().forEach(key -> unlink(key, id));
+        }
+    }
+
+    /**
+     * @return up to {@code limit} values whose texts have a word starting with the normalized {@code text},
+     * in the alphabetical order of the matched words
+     */
+    public List<T> search(String text, int limit) {
+        String prefix = normalize(text);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (prefix.length() > MAX_KEY_LENGTH) {
+            prefix = prefix.substring(0, MAX_KEY_LENGTH);
+        }
+
+        NavigableMap<String, Set<Long>> range = idsByKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        Set<Long> seen = new HashSet<>();
+        List<T> found = new ArrayList<>(Math.min(limit, 16));
+
+        for (Set<Long> ids : range.values()) {
+            for (Long id : ids) {
+                Entry<T> entry = entries.get(id);
+                if (entry != null && seen.add(id)) {
+                    found.add(entry.value());
+                    if (found.size() == limit) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int keys() {
+        return idsByKey.size();
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutAccents = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private void unlink(String key, long id) {
+        Set<Long> ids = idsByKey.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByKey.remove(key, ids);
+            }
+        }
+    }
+
+    private static Set<String> keysOf(Collection<String> texts) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String text : texts) {
+            String normalized = normalize(text);
+            int start = 0;
+            while (start < normalized.length()) {
+                int end = Math.min(normalized.length(), start + MAX_KEY_LENGTH);
+                keys.add(normalized.substring(start, end));
+
+                int space = normalized.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * When the late notices of a loan are sent: a loan is late from {@code loanDays} after it was taken
+ * (its first late day being day 1), gets a notice on each of the configured {@code days} of lateness
+ * and then one every {@code repeatEveryDays}, or no more notices when that is zero.
+ */
+@Component
+public class ReminderSchedule {
+
+    private final int loanDays;
+
+    private final int[] days;
+
+    private final int repeatEveryDays;
+
+    public ReminderSchedule(@Value("${application.loans.loan-days:4}") int loanDays,
+                            @Value("${application.loans.reminders.days:1,3}") int[] days,
+                            @Value("${application.loans.reminders.repeat-every-days:7}") int repeatEveryDays) {
+        if (days.length == 0 || days[0] < 1) {
+            throw new IllegalArgumentException("Reminder days must start at day 1 or later");
+        }
+        for (int i = 1; i < days.length; i++) {
+            if (days[i] <= days[i - 1]) {
+                throw new IllegalArgumentException("Reminder days must be increasing: " + Arrays.toString(days));
+            }
+        }
+        this.loanDays = loanDays;
+        this.days = days.clone();
+        this.repeatEveryDays = repeatEveryDays;
+    }
+
+    public int getLoanDays() {
+        return loanDays;
+    }
+
+    /**
+     * @param level number of notices already sent for the loan
+     * @return the day the next notice is due, or null when no more notices should be sent
+     */
+    public LocalDate reminderDate(LocalDate loanDate, int level) {
+        LocalDate firstLateDay = loanDate.plusDays(loanDays);
+
+        if (level < days.length) {
+            return firstLateDay.plusDays(days[level] - 1);
+        }
+        if (repeatEveryDays <= 0) {
+            return null;
+        }
+        long repeats = level - days.length + 1L;
+        return firstLateDay.plusDays(days[days.length - 1] - 1 + repeats * repeatEveryDays);
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses concurrent calls for the same key into a single execution of the loader:
+ * the first caller runs it and every caller that arrives while it is running waits for
+ * and receives the same result. Nothing is cached after the call completes.
+ *
+ * @param <K> key of the call
+ * @param <V> result of the call
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final UnaryOperator<V> share;
+
+    private final LongAdder executions = new LongAdder();
+
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * @param share copies the result, so that no two callers share a mutable instance: applied once by the caller
+     *              that ran the loader, before it gets the result, and then to that copy for each caller that waited
+     */
+    public SingleFlight(UnaryOperator<V> share) {
+        this.share = share;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+
+        if (running != null) {
+            collapsed.increment();
+            return share.apply(await(running));
+        }
+
+        executions.increment();
+        try {
+            V result = loader.get();
+            // taken before the result is handed back: the caller may change it while the others still read it
+            call.complete(share.apply(result));
+            return result;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public long executions() {
+        return executions.sum();
+    }
+
+    public long collapsed() {
+        return collapsed.sum();
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static br.com.itstoony.libraryapi.snapshot.SnapshotTable.Type.*;
+import static br.com.itstoony.libraryapi.snapshot.SnapshotTable.column;
+
+/**
+ * Exports the books and loans to a snapshot file and imports one into an empty catalog, to stand up a node
+ * without replaying the catalog through the API.
+ * <p>
+ * Both go straight through JDBC, by id and without the entities: the export streams the rows of one repeatable-read
+ * transaction, so loans never refer to books it missed, and the import inserts each block of the file as one JDBC
+ * batch, all in one transaction so a failed import leaves the catalog empty and can simply be run again.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    static final SnapshotTable BOOK = new SnapshotTable("book", List.of(
+            column("id", LONG),
+            column("title", STRING),
+            column("author", STRING),
+            column("isbn", STRING),
+            column("isbn_key", LONG)));
+
+    static final SnapshotTable LOAN = new SnapshotTable("loan", List.of(
+            column("id", LONG),
+            column("id_book", LONG),
+            column("customer", STRING),
+            column("customer_email", STRING),
+            column("loan_date", DATE),
+            column("returned", BOOLEAN),
+            column("last_notified_at", TIMESTAMP),
+            column("notification_level", INT),
+            column("next_notify_at", DATE)));
+
+    // books first, loans refer to them
+    static final List<SnapshotTable> TABLES = List.of(BOOK, LOAN);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate exportTransaction;
+
+    private final TransactionTemplate importTransaction;
+
+    private final int blockRows;
+
+    public CatalogSnapshotService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${application.snapshot.block-rows:5000}") int blockRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockRows = blockRows;
+
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        exportTransaction.setReadOnly(true);
+        exportTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.importTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Writes the catalog to {@code file}, through a partial file moved in place once complete.
+     */
+    public SnapshotReport export(Path file) throws IOException {
+        long start = System.nanoTime();
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+
+        try (SnapshotWriter writer = new SnapshotWriter(partial, TABLES, blockRows)) {
+            exportTransaction.executeWithoutResult(status -> TABLES.forEach(table ->
+                    jdbcTemplate.query(selectOf(table), (RowCallbackHandler) rs -> write(writer, table, rs))));
+            writer.finish();
+            // closed before the move, closing it again is a no-op
+            writer.close();
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+
+            SnapshotReport report = report(file, writer.rows(BOOK), writer.rows(LOAN), start);
+            log.info(" exported {} books and {} loans to {} ({} rows/s)",
+                    report.books(), report.loans(), file, report.rowsPerSecond());
+            return report;
+        } catch (UncheckedIOException ex) {
+            Files.deleteIfExists(partial);
+            throw ex.getCause();
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(partial);
+            throw ex;
+        }
+    }
+
+    /**
+     * Loads {@code file} into the catalog, which must be empty: the rows keep their ids.
+     */
+    public SnapshotReport importFrom(Path file) throws IOException {
+        long start = System.nanoTime();
+
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            if (!reader.tables().equals(TABLES)) {
+                throw new IOException("Snapshot tables " + reader.tables() + " don't match the catalog of this node");
+            }
+
+            importTransaction.executeWithoutResult(status -> {
+                for (SnapshotTable table : TABLES) {
+                    Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table.name(), Long.class);
+                    if (rows != null && rows > 0) {
+                        throw new IllegalStateException("Snapshots are only imported into an empty catalog, "
+                                + table.name() + " has " + rows + " rows");
+                    }
+                }
+                SnapshotReader.Block block;
+                while ((block = next(reader)) != null) {
+                    jdbcTemplate.batchUpdate(insertOf(block.table()), block.rows());
+                }
+            });
+            TABLES.forEach(this::restartIdentity);
+
+            SnapshotReport report = report(file, reader.rows(BOOK), reader.rows(LOAN), start);
+            log.info(" imported {} books and {} loans from {} ({} rows/s)",
+                    report.books(), report.loans(), file, report.rowsPerSecond());
+            return report;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static void write(SnapshotWriter writer, SnapshotTable table, ResultSet rs) throws SQLException {
+        List<SnapshotTable.Column> columns = table.columns();
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = rs.getObject(i + 1, columns.get(i).type().javaType());
+        }
+        try {
+            writer.write(table, row);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static SnapshotReader.Block next(SnapshotReader reader) {
+        try {
+            return reader.next();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The imported rows kept their ids, the identity of the table goes on after the highest of them
+     * (H2 syntax, like the rest of the schema).
+     */
+    private void restartIdentity(SnapshotTable table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.name(), Long.class);
+        jdbcTemplate.execute("ALTER TABLE " + table.name() + " ALTER COLUMN id RESTART WITH "
+                + (maxId == null ? 1 : maxId + 1));
+    }
+
+    private static String selectOf(SnapshotTable table) {
+        return "SELECT " + columnsOf(table) + " FROM " + table.name() + " ORDER BY id";
+    }
+
+    private static String insertOf(SnapshotTable table) {
+        return "INSERT INTO " + table.name() + " (" + columnsOf(table) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(table.columns().size(), "?")) + ")";
+    }
+
+    private static String columnsOf(SnapshotTable table) {
+        return table.columns().stream().map(SnapshotTable.Column::name).collect(Collectors.joining(", "));
+    }
+
+    private static SnapshotReport report(Path file, long books, long loans, long start) throws IOException {
+        return new SnapshotReport(file.toString(), books, loans, Files.size(file),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * {@code POST /actuator/snapshot}: exports the catalog to a new file of {@code application.snapshot.directory}.
+ * Disabled unless {@code management.endpoint.snapshot.enabled=true}: anyone reaching the actuator could fill the disk.
+ */
+@Component
+@Endpoint(id = "snapshot", enableByDefault = false)
+@ConditionalOnAvailableEndpoint(endpoint = SnapshotEndpoint.class)
+public class SnapshotEndpoint {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final CatalogSnapshotService snapshotService;
+
+    private final Path directory;
+
+    public SnapshotEndpoint(CatalogSnapshotService snapshotService,
+                            @Value("${application.snapshot.directory:snapshots}") Path directory) {
+        this.snapshotService = snapshotService;
+        this.directory = directory;
+    }
+
+    @WriteOperation
+    public SnapshotReport export() throws IOException {
+        Files.createDirectories(directory);
+        return snapshotService.export(directory.resolve("catalog-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".snap"));
+    }
+}
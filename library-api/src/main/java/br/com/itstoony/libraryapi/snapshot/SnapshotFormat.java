@@ -0,0 +1,112 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Layout of a snapshot file, all numbers big-endian:
+ * <pre>
+ * header   magic (int), version (short), table count (int),
+ *          per table: name, column count (short), per column: name, type code (byte)
+ * block    1 (byte), table index (byte), rows (int), length (int), crc32 of the rows (int), rows
+ * end      0 (byte), per table: rows written (long)
+ * </pre>
+ * Blocks follow each other up to the end marker, a file without it was not completely written. A row is a bitmap of
+ * its null columns followed by the values of the others; strings are their UTF-8 length (int) and bytes, dates their
+ * epoch day (int), timestamps their epoch second (long) and nanoseconds (int).
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x4C42534E;
+
+    // bumped on any change of the layout, a node only reads the version it writes
+    static final short VERSION = 1;
+
+    static final byte BLOCK = 1;
+
+    static final byte END = 0;
+
+    // marker, table index, rows, length and crc
+    static final int BLOCK_HEADER_BYTES = 14;
+
+    private SnapshotFormat() {
+    }
+
+    static void writeRow(DataOutputStream out, SnapshotTable table, Object[] row) throws IOException {
+        List<SnapshotTable.Column> columns = table.columns();
+        if (row.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values for " + table.name());
+        }
+
+        byte[] nulls = new byte[(columns.size() + 7) / 8];
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == null) {
+                nulls[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        out.write(nulls);
+
+        for (int i = 0; i < row.length; i++) {
+            Object value = row[i];
+            if (value == null) {
+                continue;
+            }
+            switch (columns.get(i).type()) {
+                case LONG -> out.writeLong(((Number) value).longValue());
+                case INT -> out.writeInt(((Number) value).intValue());
+                case BOOLEAN -> out.writeBoolean((Boolean) value);
+                case STRING -> writeString(out, (String) value);
+                case DATE -> out.writeInt(Math.toIntExact(((LocalDate) value).toEpochDay()));
+                case TIMESTAMP -> {
+                    LocalDateTime timestamp = (LocalDateTime) value;
+                    out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(timestamp.getNano());
+                }
+            }
+        }
+    }
+
+    static Object[] readRow(ByteBuffer in, SnapshotTable table) {
+        List<SnapshotTable.Column> columns = table.columns();
+        byte[] nulls = new byte[(columns.size() + 7) / 8];
+        in.get(nulls);
+
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            if ((nulls[i >>> 3] & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            row[i] = switch (columns.get(i).type()) {
+                case LONG -> in.getLong();
+                case INT -> in.getInt();
+                case BOOLEAN -> in.get() != 0;
+                case STRING -> readString(in);
+                case DATE -> LocalDate.ofEpochDay(in.getInt());
+                case TIMESTAMP -> LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+            };
+        }
+        return row;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,187 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a snapshot file, see {@link SnapshotFormat}, one block at a time.
+ * <p>
+ * The file is memory-mapped a window at a time rather than copied through a stream: the rows are decoded straight
+ * from the page cache, and files larger than what one mapping can hold are read by moving the window.
+ * Every block is checked against its checksum, and the rows read against the counts of the end marker.
+ */
+public class SnapshotReader implements Closeable {
+
+    public record Block(SnapshotTable table, List<Object[]> rows) {
+    }
+
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final List<SnapshotTable> tables;
+
+    private final long[] read;
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    private long position;
+
+    private boolean ended;
+
+    public SnapshotReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            ByteBuffer header = slice(0, (int) Math.min(size, WINDOW_BYTES));
+            this.tables = readHeader(header);
+            this.read = new long[tables.size()];
+            this.position = header.position();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public List<SnapshotTable> tables() {
+        return tables;
+    }
+
+    public long rows(SnapshotTable table) {
+        return read[tables.indexOf(table)];
+    }
+
+    /**
+     * @return the next block, null once the end marker is reached
+     */
+    public Block next() throws IOException {
+        if (ended) {
+            return null;
+        }
+        try {
+            byte marker = slice(position, 1).get();
+            if (marker == SnapshotFormat.END) {
+                checkEnd(slice(position + 1, Long.BYTES * tables.size()));
+                ended = true;
+                return null;
+            }
+            if (marker != SnapshotFormat.BLOCK) {
+                throw corrupted("unknown marker " + marker + " at " + position);
+            }
+
+            ByteBuffer blockHeader = slice(position + 1, SnapshotFormat.BLOCK_HEADER_BYTES - 1);
+            int tableIndex = blockHeader.get();
+            int rows = blockHeader.getInt();
+            int length = blockHeader.getInt();
+            int crc = blockHeader.getInt();
+            if (tableIndex < 0 || tableIndex >= tables.size() || rows < 0 || length < 0) {
+                throw corrupted("invalid block at " + position);
+            }
+
+            ByteBuffer body = slice(position + SnapshotFormat.BLOCK_HEADER_BYTES, length);
+            CRC32 check = new CRC32();
+            check.update(body.duplicate());
+            if ((int) check.getValue() != crc) {
+                throw corrupted("checksum mismatch in the block at " + position);
+            }
+
+            SnapshotTable table = tables.get(tableIndex);
+            List<Object[]> decoded = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                decoded.add(SnapshotFormat.readRow(body, table));
+            }
+            if (body.hasRemaining()) {
+                throw corrupted("extra bytes in the block at " + position);
+            }
+
+            position += SnapshotFormat.BLOCK_HEADER_BYTES + length;
+            read[tableIndex] += rows;
+            return new Block(table, decoded);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw corrupted("invalid row in the block at " + position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private List<SnapshotTable> readHeader(ByteBuffer header) throws IOException {
+        try {
+            if (header.getInt() != SnapshotFormat.MAGIC) {
+                throw new IOException("Not a catalog snapshot");
+            }
+            short version = header.getShort();
+            if (version != SnapshotFormat.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version
+                        + ", this node reads version " + SnapshotFormat.VERSION);
+            }
+
+            int tableCount = header.getInt();
+            if (tableCount < 0 || tableCount > Byte.MAX_VALUE) {
+                throw corrupted("invalid table count " + tableCount);
+            }
+            List<SnapshotTable> read = new ArrayList<>(tableCount);
+            for (int i = 0; i < tableCount; i++) {
+                String name = SnapshotFormat.readString(header);
+                int columnCount = header.getShort();
+                List<SnapshotTable.Column> columns = new ArrayList<>(columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    String column = SnapshotFormat.readString(header);
+                    SnapshotTable.Type type = SnapshotTable.Type.of(header.get());
+                    if (type == null) {
+                        throw corrupted("unknown type of column " + name + "." + column);
+                    }
+                    columns.add(SnapshotTable.column(column, type));
+                }
+                read.add(new SnapshotTable(name, columns));
+            }
+            return List.copyOf(read);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw corrupted("invalid header");
+        }
+    }
+
+    private void checkEnd(ByteBuffer counts) throws IOException {
+        for (int i = 0; i < tables.size(); i++) {
+            long written = counts.getLong();
+            if (written != read[i]) {
+                throw corrupted(written + " rows of " + tables.get(i).name() + " written but " + read[i] + " read");
+            }
+        }
+    }
+
+    /**
+     * The bytes from {@code from} to {@code from + length}, moving the mapped window when they are not in it.
+     */
+    private ByteBuffer slice(long from, int length) throws IOException {
+        if (from + length > size) {
+            throw corrupted("file ends at " + size + ", incomplete snapshot");
+        }
+        if (window == null || from < windowStart || from + length > windowStart + window.capacity()) {
+            long mapped = Math.min(Math.max(WINDOW_BYTES, length), size - from);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, from, mapped);
+            windowStart = from;
+        }
+        return window.slice((int) (from - windowStart), length);
+    }
+
+    private static IOException corrupted(String reason) {
+        return new IOException("Corrupted snapshot: " + reason);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+/**
+ * What a snapshot export or import did, and how fast.
+ */
+public record SnapshotReport(String file, long books, long loans, long bytes, long millis) {
+
+    public long rowsPerSecond() {
+        return (books + loans) * 1000 / Math.max(1, millis);
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Bootstraps a node from a snapshot: with {@code application.snapshot.import-from} set, the file is loaded into the
+ * empty catalog while the context starts.
+ * <p>
+ * It runs once the schema exists (after the entity manager factory) and before the in-memory indexes, which are
+ * loaded from the database once every bean is created, so they start from the imported catalog.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class SnapshotStartupImport implements InitializingBean {
+
+    private final CatalogSnapshotService snapshotService;
+
+    private final String importFrom;
+
+    public SnapshotStartupImport(CatalogSnapshotService snapshotService,
+                                 @Value("${application.snapshot.import-from:}") String importFrom) {
+        this.snapshotService = snapshotService;
+        this.importFrom = importFrom;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (importFrom.isBlank()) {
+            return;
+        }
+        log.info(" importing the catalog snapshot {}", importFrom);
+        snapshotService.importFrom(Path.of(importFrom));
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A table as stored in a snapshot: its name and its columns, in the order of the values of each row.
+ */
+public record SnapshotTable(String name, List<Column> columns) {
+
+    public SnapshotTable {
+        columns = List.copyOf(columns);
+    }
+
+    public record Column(String name, Type type) {
+    }
+
+    /**
+     * Column types and their codes in the file, the codes never change once released.
+     */
+    public enum Type {
+        LONG(1, Long.class),
+        INT(2, Integer.class),
+        BOOLEAN(3, Boolean.class),
+        STRING(4, String.class),
+        DATE(5, LocalDate.class),
+        TIMESTAMP(6, LocalDateTime.class);
+
+        final byte code;
+
+        final Class<?> javaType;
+
+        Type(int code, Class<?> javaType) {
+            this.code = (byte) code;
+            this.javaType = javaType;
+        }
+
+        public Class<?> javaType() {
+            return javaType;
+        }
+
+        static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static Column column(String name, Type type) {
+        return new Column(name, type);
+    }
+}
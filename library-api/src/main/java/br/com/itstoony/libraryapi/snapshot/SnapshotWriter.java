@@ -0,0 +1,114 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Writes rows to a snapshot file, see {@link SnapshotFormat}, in blocks of at most {@code blockRows} rows of one
+ * table. The file is only complete once {@link #finish()} is called: closing the writer without it, after a failure,
+ * leaves a file that the reader refuses.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private final DataOutputStream out;
+
+    private final List<SnapshotTable> tables;
+
+    private final int blockRows;
+
+    private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(1 << 16);
+
+    private final DataOutputStream block = new DataOutputStream(blockBytes);
+
+    private final long[] written;
+
+    private int blockTable = -1;
+
+    private int rowsInBlock;
+
+    public SnapshotWriter(Path file, List<SnapshotTable> tables, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Snapshot block rows must be positive");
+        }
+        this.tables = List.copyOf(tables);
+        this.blockRows = blockRows;
+        this.written = new long[tables.size()];
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+
+        out.writeInt(SnapshotFormat.MAGIC);
+        out.writeShort(SnapshotFormat.VERSION);
+        out.writeInt(tables.size());
+        for (SnapshotTable table : tables) {
+            SnapshotFormat.writeString(out, table.name());
+            out.writeShort(table.columns().size());
+            for (SnapshotTable.Column column : table.columns()) {
+                SnapshotFormat.writeString(out, column.name());
+                out.writeByte(column.type().code);
+            }
+        }
+    }
+
+    public void write(SnapshotTable table, Object[] row) throws IOException {
+        int index = tables.indexOf(table);
+        if (index < 0) {
+            throw new IllegalArgumentException("Table " + table.name() + " is not part of this snapshot");
+        }
+        if (index != blockTable) {
+            flushBlock();
+            blockTable = index;
+        }
+
+        SnapshotFormat.writeRow(block, table, row);
+        written[index]++;
+        if (++rowsInBlock == blockRows) {
+            flushBlock();
+        }
+    }
+
+    public long rows(SnapshotTable table) {
+        return written[tables.indexOf(table)];
+    }
+
+    /**
+     * Writes the last block and the end marker with the rows written per table.
+     */
+    public void finish() throws IOException {
+        flushBlock();
+        out.writeByte(SnapshotFormat.END);
+        for (long rows : written) {
+            out.writeLong(rows);
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void flushBlock() throws IOException {
+        if (rowsInBlock == 0) {
+            return;
+        }
+        byte[] rows = blockBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(rows);
+
+        out.writeByte(SnapshotFormat.BLOCK);
+        out.writeByte(blockTable);
+        out.writeInt(rowsInBlock);
+        out.writeInt(rows.length);
+        out.writeInt((int) crc.getValue());
+        out.write(rows);
+
+        blockBytes.reset();
+        rowsInBlock = 0;
+    }
+}
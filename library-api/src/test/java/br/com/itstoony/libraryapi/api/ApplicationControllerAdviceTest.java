@@ -0,0 +1,77 @@
+package br.com.itstoony.libraryapi.api;
+
+import br.com.itstoony.libraryapi.api.exception.ApiErrors;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.config.BulkheadFullException;
+import br.com.itstoony.libraryapi.exception.BusinessException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ApplicationControllerAdviceTest {
+
+    private final ApplicationControllerAdvice advice = new ApplicationControllerAdvice();
+
+    @Test
+    @DisplayName("Should reuse the error body of a repeated business error")
+    public void cachedBusinessErrorTest() {
+        // execution
+        ApiErrors first = advice.handleBusinessExceptions(new BusinessException("Book already loaned"));
+        ApiErrors second = advice.handleBusinessExceptions(new BusinessException("Book already loaned"));
+
+        // verification
+        assertThat(first.getErrors()).containsExactly("Book already loaned");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Should answer with the status of a stackless status exception")
+    public void stacklessStatusExceptionTest() {
+        // scenery
+        ApiStatusException ex = new ApiStatusException(HttpStatus.BAD_REQUEST, "Unknown field: price");
+
+        // execution
+        ResponseEntity<?> response = advice.handleResponseStatusExceptions(ex);
+
+        // verification
+        assertThat(ex.getStackTrace()).isEmpty();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(((ApiErrors) response.getBody()).getErrors()).containsExactly("Unknown field: price");
+        assertThat(advice.handleResponseStatusExceptions(new ApiStatusException(HttpStatus.NOT_FOUND)).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("Should ask to try again later when the search executor is full")
+    public void taskRejectedTest() {
+        // execution
+        ApiErrors errors = advice.handleTaskRejectedExceptions(new TaskRejectedException("Executor is full"));
+
+        // verification
+        assertThat(errors.getErrors()).containsExactly("Too many searches in progress, try again later");
+    }
+
+    @Test
+    @DisplayName("Should ask to try again later when the connection budget is exhausted")
+    public void bulkheadFullTest() {
+        // execution
+        ApiErrors errors = advice.handleBulkheadFullExceptions(new BulkheadFullException("api-write", 4));
+
+        // verification
+        assertThat(errors.getErrors()).containsExactly("Server is busy, try again later");
+    }
+
+    @Test
+    @DisplayName("Should not fill the stack trace of business exceptions")
+    public void stacklessBusinessExceptionTest() {
+        // execution
+        BusinessException ex = new BusinessException("Isbn já cadastrado");
+
+        // verification
+        assertThat(ex.getStackTrace()).isEmpty();
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyFilterTest {
+
+    IdempotencyFilter filter;
+
+    AtomicInteger writes;
+
+    // the create: reads the body and answers 201 with the id of the write
+    FilterChain create;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new IdempotencyFilter(new ObjectMapper(), new String[]{ "known-key" }, true,
+                new String[]{ "/api/loans", "/api/books" }, 24, 100);
+        writes = new AtomicInteger();
+        create = (request, response) -> {
+            request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            http.getWriter().write(String.valueOf(writes.incrementAndGet()));
+        };
+    }
+
+    @Test
+    @DisplayName("Should replay the original response to a retry without running the write again")
+    public void replayTest() throws Exception {
+        // execution
+        MockHttpServletResponse first = post("/api/loans", "key-1", "{\"isbn\":\"9780134685991\"}");
+        MockHttpServletResponse retry = post("/api/loans", "key-1", "{\"isbn\":\"9780134685991\"}");
+
+        // verification
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getContentAsString()).isEqualTo("1");
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo("1");
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Should run requests with other keys, paths or without a key")
+    public void otherRequestsTest() throws Exception {
+        // execution
+        post("/api/loans", "key-1", "{}");
+        post("/api/loans", "key-2", "{}");
+        post("/api/books", "key-1", "{}");
+        post("/api/loans", null, "{}");
+        post("/api/loans", null, "{}");
+
+        // verification
+        assertThat(writes.get()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should not replay a response to another ip sending the same unknown api key")
+    public void unknownApiKeyTest() throws Exception {
+        // scenery
+        MockHttpServletRequest first = request("/api/loans", "key-1", "{}");
+        first.addHeader(ClientIdentity.API_KEY_HEADER, "someone-elses-key");
+        filter.doFilter(first, new MockHttpServletResponse(), create);
+
+        MockHttpServletRequest other = request("/api/loans", "key-1", "{}");
+        other.setRemoteAddr("10.0.0.2");
+        other.addHeader(ClientIdentity.API_KEY_HEADER, "someone-elses-key");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // execution
+        filter.doFilter(other, response, create);
+
+        // verification
+        assertThat(writes.get()).isEqualTo(2);
+        assertThat(response.getContentAsString()).isEqualTo("2");
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should replay to the same known api key from another ip")
+    public void knownApiKeyTest() throws Exception {
+        // scenery
+        MockHttpServletRequest first = request("/api/loans", "key-1", "{}");
+        first.addHeader(ClientIdentity.API_KEY_HEADER, "known-key");
+        filter.doFilter(first, new MockHttpServletResponse(), create);
+
+        MockHttpServletRequest retry = request("/api/loans", "key-1", "{}");
+        retry.setRemoteAddr("10.0.0.2");
+        retry.addHeader(ClientIdentity.API_KEY_HEADER, "known-key");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // execution
+        filter.doFilter(retry, response, create);
+
+        // verification
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Should refuse a key reused for a different request")
+    public void differentBodyTest() throws Exception {
+        // scenery
+        post("/api/loans", "key-1", "{\"isbn\":\"9780134685991\"}");
+
+        // execution
+        MockHttpServletResponse reused = post("/api/loans", "key-1", "{\"isbn\":\"9788535902778\"}");
+
+        // verification
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should run the retry of a request that failed with a server error")
+    public void serverErrorTest() throws Exception {
+        // scenery
+        FilterChain failing = (request, response) -> ((HttpServletResponse) response).setStatus(503);
+        MockHttpServletRequest request = request("/api/loans", "key-1", "{}");
+        filter.doFilter(request, new MockHttpServletResponse(), failing);
+
+        // execution
+        MockHttpServletResponse retry = post("/api/loans", "key-1", "{}");
+
+        // verification
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse post(String path, String key, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path, key, body), response, create);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr("10.0.0.1");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return request;
+    }
+}
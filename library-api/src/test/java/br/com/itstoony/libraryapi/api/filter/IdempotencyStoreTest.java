@@ -0,0 +1,82 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyStoreTest {
+
+    private static final long NOW = TimeUnit.SECONDS.toNanos(100);
+
+    private static final long TTL = TimeUnit.SECONDS.toNanos(60);
+
+    private static final byte[] FINGERPRINT = { 1, 2, 3 };
+
+    private static final IdempotencyStore.StoredResponse CREATED =
+            new IdempotencyStore.StoredResponse(201, "application/json", "1".getBytes());
+
+    @Test
+    @DisplayName("Should give the first request the key and its retries the original response")
+    public void beginCompleteTest() {
+        // scenery
+        IdempotencyStore store = new IdempotencyStore(TTL, 100);
+
+        // execution
+        IdempotencyStore.Entry first = store.begin("key", FINGERPRINT, NOW);
+        IdempotencyStore.Entry whileRunning = store.begin("key", FINGERPRINT, NOW);
+        // the entry is shared: read before the first request completes it
+        IdempotencyStore.StoredResponse responseWhileRunning = whileRunning.response();
+        store.complete("key", CREATED, NOW);
+        IdempotencyStore.Entry retry = store.begin("key", FINGERPRINT, NOW + 1);
+
+        // verification
+        assertThat(first).isNull();
+        assertThat(responseWhileRunning).isNull();
+        assertThat(retry.response()).isEqualTo(CREATED);
+        assertThat(retry.matches(FINGERPRINT)).isTrue();
+        assertThat(retry.matches(new byte[]{ 4 })).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should forget a key once its ttl is over or its request was abandoned")
+    public void expireAndAbandonTest() {
+        // scenery
+        IdempotencyStore store = new IdempotencyStore(TTL, 100);
+        store.begin("done", FINGERPRINT, NOW);
+        store.complete("done", CREATED, NOW);
+        store.begin("failed", FINGERPRINT, NOW);
+
+        // execution
+        store.abandon("failed");
+        IdempotencyStore.Entry afterTtl = store.begin("done", FINGERPRINT, NOW + TTL);
+        IdempotencyStore.Entry afterAbandon = store.begin("failed", FINGERPRINT, NOW);
+
+        // verification
+        assertThat(afterTtl).isNull();
+        assertThat(afterAbandon).isNull();
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest completed keys when full, never the ones in progress")
+    public void evictionTest() {
+        // scenery
+        IdempotencyStore store = new IdempotencyStore(TTL, 3);
+        store.begin("running", FINGERPRINT, NOW);
+        store.begin("oldest", FINGERPRINT, NOW + 1);
+        store.complete("oldest", CREATED, NOW + 1);
+        store.begin("newest", FINGERPRINT, NOW + 2);
+        store.complete("newest", CREATED, NOW + 2);
+
+        // execution
+        store.begin("another", FINGERPRINT, NOW + 3);
+
+        // verification
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.begin("running", FINGERPRINT, NOW + 4)).isNotNull();
+        assertThat(store.begin("newest", FINGERPRINT, NOW + 4)).isNotNull();
+        assertThat(store.begin("oldest", FINGERPRINT, NOW + 4)).isNull();
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitFilterTest {
+
+    RateLimitFilter filter;
+
+    AtomicInteger handled;
+
+    FilterChain chain;
+
+    @BeforeEach
+    public void setUp() {
+        // two writes per client, then one per second
+        filter = new RateLimitFilter(new ObjectMapper(), new String[]{ "known-key" },
+                true, 200, 100, 50, 100, 1, 2);
+        handled = new AtomicInteger();
+        chain = (request, response) -> handled.incrementAndGet();
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After once the client used its burst")
+    public void tooManyRequestsTest() throws Exception {
+        // execution
+        post("10.0.0.1", null);
+        post("10.0.0.1", null);
+        MockHttpServletResponse rejected = post("10.0.0.1", null);
+
+        // verification
+        assertThat(handled.get()).isEqualTo(2);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("Too many requests");
+    }
+
+    @Test
+    @DisplayName("Should limit by ip the clients sending unknown api keys")
+    public void unknownApiKeyTest() throws Exception {
+        // execution
+        post("10.0.0.1", "random-1");
+        post("10.0.0.1", "random-2");
+        MockHttpServletResponse rejected = post("10.0.0.1", "random-3");
+
+        // verification
+        assertThat(handled.get()).isEqualTo(2);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should give a known api key a bucket of its own")
+    public void knownApiKeyTest() throws Exception {
+        // scenery
+        post("10.0.0.1", null);
+        post("10.0.0.1", null);
+
+        // execution
+        MockHttpServletResponse response = post("10.0.0.1", "known-key");
+
+        // verification
+        assertThat(handled.get()).isEqualTo(3);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse post(String ip, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/loans");
+        request.setRemoteAddr(ip);
+        if (apiKey != null) {
+            request.addHeader(ClientIdentity.API_KEY_HEADER, apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.itstoony.libraryapi.api.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketRateLimiterTest {
+
+    private static final long NOW = TimeUnit.SECONDS.toNanos(100);
+
+    @Test
+    @DisplayName("Should allow a burst and then reject with the time to wait")
+    public void burstThenRejectTest() {
+        // scenery
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, 100);
+
+        // execution
+        long first = limiter.tryAcquire("client", NOW);
+        long second = limiter.tryAcquire("client", NOW);
+        long third = limiter.tryAcquire("client", NOW);
+        long fourth = limiter.tryAcquire("client", NOW);
+
+        // verification
+        assertThat(first).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(second).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(third).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(fourth).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    @DisplayName("Should refill the bucket as time passes")
+    public void refillTest() {
+        // scenery
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1, 100);
+        limiter.tryAcquire("client", NOW);
+
+        // execution
+        long tooSoon = limiter.tryAcquire("client", NOW + TimeUnit.MILLISECONDS.toNanos(50));
+        long afterRefill = limiter.tryAcquire("client", NOW + TimeUnit.MILLISECONDS.toNanos(100));
+
+        // verification
+        assertThat(tooSoon).isPositive();
+        assertThat(afterRefill).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+    }
+
+    @Test
+    @DisplayName("Should keep a separate bucket for each client")
+    public void separateClientsTest() {
+        // scenery
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 100);
+        limiter.tryAcquire("client-a", NOW);
+
+        // execution
+        long otherClient = limiter.tryAcquire("client-b", NOW);
+
+        // verification
+        assertThat(otherClient).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.trackedClients()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should forget idle clients when the client limit is reached")
+    public void evictIdleClientsTest() {
+        // scenery
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1, 2);
+        limiter.tryAcquire("client-a", NOW);
+        limiter.tryAcquire("client-b", NOW);
+
+        // execution
+        limiter.tryAcquire("client-c", NOW + TimeUnit.SECONDS.toNanos(1));
+
+        // verification
+        assertThat(limiter.trackedClients()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse new clients while every tracked client is active")
+    public void maxClientsTest() {
+        // scenery
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 5, 2);
+        limiter.tryAcquire("client-a", NOW);
+        limiter.tryAcquire("client-b", NOW);
+
+        // execution
+        long refused = limiter.tryAcquire("client-c", NOW);
+        long knownClient = limiter.tryAcquire("client-a", NOW);
+        long afterSweepInterval = limiter.tryAcquire("client-c", NOW + TokenBucketRateLimiter.SWEEP_INTERVAL_NANOS);
+
+        // verification
+        assertThat(refused).isPositive();
+        assertThat(knownClient).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(afterSweepInterval).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.trackedClients()).isEqualTo(2);
+    }
+}
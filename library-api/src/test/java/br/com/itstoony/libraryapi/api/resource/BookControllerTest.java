@@ -4,7 +4,10 @@ import br.com.itstoony.libraryapi.api.dto.BookDTO;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.exception.BusinessException;
 import br.com.itstoony.libraryapi.service.BookService;
+import br.com.itstoony.libraryapi.service.BookSuggestionService;
+import br.com.itstoony.libraryapi.service.LoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncListener;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,20 +17,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -44,6 +54,12 @@ public class BookControllerTest {
     @MockBean
     BookService service;
 
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    BookSuggestionService suggestionService;
+
     @Test
     @DisplayName("Deve criar um livro com sucesso.")
     public void createBookTest() throws Exception {
@@ -266,8 +282,9 @@ public class BookControllerTest {
         Book book = createValidBook();
         book.setId(id);
 
-        BDDMockito.given( service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)) )
-                .willReturn( new PageImpl<>(Collections.singletonList(book), Pageable.ofSize(100), 1) );
+        BDDMockito.given( service.findAsync(Mockito.any(Book.class), Mockito.isNull(), Mockito.any(Pageable.class)) )
+                .willReturn( CompletableFuture.completedFuture(
+                        new PageImpl<>(Collections.singletonList(book), Pageable.ofSize(100), 1)) );
 
         String queryString = String.format("?title=%s&author=%s&page=0&size=100",
                 book.getTitle(), book.getAuthor());
@@ -278,14 +295,252 @@ public class BookControllerTest {
                 .accept(MediaType.APPLICATION_JSON);
 
         // verification
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
         mvc
-                .perform(request)
+                .perform(asyncDispatch(started))
                 .andExpect( status().isOk() )
                 .andExpect( jsonPath("content", hasSize(1)))
                 .andExpect( jsonPath("totalElements").value(1))
-                .andExpect( jsonPath("pageable.pageSize").value(100))
-                .andExpect( jsonPath("pageable.pageNumber").value(0));
+                .andExpect( jsonPath("size").value(100))
+                .andExpect( jsonPath("page").value(0));
+
+    }
+
+    @Test
+    @DisplayName("Should filter books returning only the requested fields")
+    public void findBooksWithFieldsTest() throws Exception {
+        // scenary
+        Book book = createValidBook();
+        book.setId(1L);
+
+        BDDMockito.given( service.findAsync(Mockito.any(Book.class), Mockito.isNull(), Mockito.any(Pageable.class)) )
+                .willReturn( CompletableFuture.completedFuture(
+                        new PageImpl<>(Collections.singletonList(book), Pageable.ofSize(100), 1)) );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras&fields=title,isbn"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
+        mvc
+                .perform(asyncDispatch(started))
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content[0].title").value(book.getTitle()))
+                .andExpect( jsonPath("content[0].isbn").value(book.getIsbn()))
+                .andExpect( jsonPath("content[0].author").doesNotExist())
+                .andExpect( jsonPath("content[0].id").doesNotExist())
+                .andExpect( jsonPath("pageable").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should filter only the available books")
+    public void findAvailableBooksTest() throws Exception {
+        // scenary
+        Book book = createValidBook();
+        book.setId(1L);
+
+        BDDMockito.given( service.findAsync(Mockito.any(Book.class), Mockito.eq(true), Mockito.any(Pageable.class)) )
+                .willReturn( CompletableFuture.completedFuture(
+                        new PageImpl<>(Collections.singletonList(book), Pageable.ofSize(20), 1)) );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?available=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
+        mvc
+                .perform(asyncDispatch(started))
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", hasSize(1)))
+                .andExpect( jsonPath("content[0].id").value(1));
+    }
 
+    @Test
+    @DisplayName("Should answer 503 when the search executor is full")
+    public void findBooksRejectedTest() throws Exception {
+        // scenary
+        BDDMockito.given( service.findAsync(Mockito.any(Book.class), Mockito.any(), Mockito.any(Pageable.class)) )
+                .willThrow( new TaskRejectedException("Executor is full") );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect( status().isServiceUnavailable() )
+                .andExpect( jsonPath("errors[0]").value("Too many searches in progress, try again later"));
+    }
+
+    @Test
+    @DisplayName("Should answer the failure of an asynchronous search")
+    public void findBooksFailedTest() throws Exception {
+        // scenary
+        BDDMockito.given( service.findAsync(Mockito.any(Book.class), Mockito.any(), Mockito.any(Pageable.class)) )
+                .willReturn( CompletableFuture.failedFuture(AsyncResults.timedOut()) );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
+        mvc
+                .perform(asyncDispatch(started))
+                .andExpect( status().isServiceUnavailable() );
+    }
+
+    @Test
+    @DisplayName("Should answer 503 once an asynchronous search took too long")
+    public void findBooksTimedOutTest() throws Exception {
+        // scenary
+        BDDMockito.given( service.findAsync(Mockito.any(Book.class), Mockito.any(), Mockito.any(Pageable.class)) )
+                .willReturn( new CompletableFuture<>() );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras"))
+                .accept(MediaType.APPLICATION_JSON);
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) started.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(null);
+        }
+
+        // verification
+        mvc
+                .perform(asyncDispatch(started))
+                .andExpect( status().isServiceUnavailable() )
+                .andExpect( jsonPath("errors[0]").value("The request took too long, try again later"));
+    }
+
+    @Test
+    @DisplayName("Should refuse unknown fields")
+    public void findBooksWithUnknownFieldTest() throws Exception {
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?fields=title,price"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors[0]").value("Unknown field: price"));
+    }
+
+    @Test
+    @DisplayName("Should get several books by id in the requested order flagging the missing ones")
+    public void getBooksBatchByIdsTest() throws Exception {
+        // scenary
+        Book first = Book.builder().id(1L).title("As aventuras").author("Arthur").isbn("001").build();
+        Book third = Book.builder().id(3L).title("Outras aventuras").author("Arthur").isbn("003").build();
+
+        BDDMockito.given(service.getByIds(Mockito.anyCollection())).willReturn(List.of(third, first));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/batch?ids=3,2,1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].key").value("3"))
+                .andExpect(jsonPath("$[0].found").value(true))
+                .andExpect(jsonPath("$[0].book.title").value("Outras aventuras"))
+                .andExpect(jsonPath("$[1].key").value("2"))
+                .andExpect(jsonPath("$[1].found").value(false))
+                .andExpect(jsonPath("$[2].book.id").value(1L));
+
+        Mockito.verify(service, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Should get several books by isbn, in any of its forms")
+    public void getBooksBatchByIsbnsTest() throws Exception {
+        // scenary
+        Book book = Book.builder().id(1L).title("As aventuras").author("Arthur")
+                .isbn("9780134685991").isbnKey(9780134685991L).build();
+
+        BDDMockito.given(service.getBooksByIsbns(Mockito.anyCollection())).willReturn(List.of(book));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/batch?isbns=0-13-468599-7,9788535902778"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("0-13-468599-7"))
+                .andExpect(jsonPath("$[0].found").value(true))
+                .andExpect(jsonPath("$[0].book.isbn").value("9780134685991"))
+                .andExpect(jsonPath("$[1].key").value("9788535902778"))
+                .andExpect(jsonPath("$[1].found").value(false));
+    }
+
+    @Test
+    @DisplayName("Should refuse a batch without keys")
+    public void getBooksBatchWithoutKeysTest() throws Exception {
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Inform either ids or isbns"));
+    }
+
+    @Test
+    @DisplayName("Should suggest books for the typed text")
+    public void autocompleteTest() throws Exception {
+        // scenary
+        Book book = Book.builder().id(1L).title("As aventuras").author("Arthur").isbn("001").build();
+
+        BDDMockito.given(suggestionService.suggest("aven", 10)).willReturn(List.of(book));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/autocomplete?q=aven"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].title").value("As aventuras"));
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Should cap the number of suggestions")
+    public void autocompleteLimitTest() throws Exception {
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/autocomplete?q=a&limit=1000"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect(status().isOk());
+        Mockito.verify(suggestionService).suggest("a", 20);
     }
 
     private static Book createValidBook() {
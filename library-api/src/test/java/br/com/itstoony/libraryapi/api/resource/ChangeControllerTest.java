@@ -0,0 +1,111 @@
+package br.com.itstoony.libraryapi.api.resource;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import br.com.itstoony.libraryapi.service.ChangeFeedService;
+import br.com.itstoony.libraryapi.service.ChangeFeedService.ChangePage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ChangeController.class)
+@AutoConfigureMockMvc
+public class ChangeControllerTest {
+
+    static final String CHANGE_API = "/api/changes";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ChangeFeedService service;
+
+    @Test
+    @DisplayName("Should return the changes after since with the changed books and tombstones")
+    public void changesTest() throws Exception {
+        // scenery
+        Book book = Book.builder().id(7L).title("As aventuras").author("Fulano").isbn("9780134685991").build();
+        List<Change> changes = List.of(
+                Change.builder().id(11L).type(Change.Type.BOOK).entityId(7L)
+                        .operation(Change.Operation.UPDATED).occurredAt(LocalDateTime.now()).build(),
+                Change.builder().id(12L).type(Change.Type.BOOK).entityId(8L)
+                        .operation(Change.Operation.DELETED).occurredAt(LocalDateTime.now()).build());
+
+        BDDMockito.given(service.isRetained(10L)).willReturn(true);
+        BDDMockito.given(service.getChanges(10L, 2))
+                .willReturn(new ChangePage(changes, Map.of(7L, book), Map.of(), 12L, true));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CHANGE_API.concat("?since=10&limit=2"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("changes", hasSize(2)))
+                .andExpect( jsonPath("changes[0].sequence").value(11))
+                .andExpect( jsonPath("changes[0].book.title").value("As aventuras"))
+                .andExpect( jsonPath("changes[1].operation").value("DELETED"))
+                .andExpect( jsonPath("changes[1].book").doesNotExist())
+                .andExpect( jsonPath("next").value(12))
+                .andExpect( jsonPath("more").value(true));
+    }
+
+    @Test
+    @DisplayName("Should return only the current sequence without since")
+    public void currentSequenceTest() throws Exception {
+        // scenery
+        BDDMockito.given(service.lastSequence()).willReturn(42L);
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CHANGE_API)
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("changes", hasSize(0)))
+                .andExpect( jsonPath("next").value(42));
+        verify(service, Mockito.never()).getChanges(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Should answer 410 when the changes after since were pruned")
+    public void prunedTest() throws Exception {
+        // scenery
+        BDDMockito.given(service.isRetained(10L)).willReturn(false);
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CHANGE_API.concat("?since=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc.perform(request)
+                .andExpect( status().isGone() );
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.itstoony.libraryapi.api.resource;
+
+import br.com.itstoony.libraryapi.api.dto.HoldDTO;
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.exception.BusinessException;
+import br.com.itstoony.libraryapi.service.BookService;
+import br.com.itstoony.libraryapi.service.HoldService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = HoldController.class)
+@AutoConfigureMockMvc
+public class HoldControllerTest {
+
+    static final String HOLD_API = "/api/holds";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private HoldService holdService;
+
+    @Test
+    @DisplayName("Should queue a customer for a loaned book")
+    public void createHoldTest() throws Exception {
+        // scenery
+        Book book = createValidBook();
+        Hold hold = createHold(book);
+
+        BDDMockito.given(bookService.getBookByIsbn("9780134685991")).willReturn(Optional.of(book));
+        BDDMockito.given(holdService.place(Mockito.any(Hold.class))).willReturn(hold);
+        BDDMockito.given(holdService.position(hold)).willReturn(2);
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(HOLD_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(createHoldDTO()));
+
+        // verification
+        mvc.perform(request)
+                .andExpect( status().isCreated() )
+                .andExpect( jsonPath("id").value(1L))
+                .andExpect( jsonPath("position").value(2))
+                .andExpect( jsonPath("ready").value(false));
+    }
+
+    @Test
+    @DisplayName("Should refuse a hold on a book that is not loaned")
+    public void createHoldOnAvailableBookTest() throws Exception {
+        // scenery
+        BDDMockito.given(bookService.getBookByIsbn("9780134685991")).willReturn(Optional.of(createValidBook()));
+        BDDMockito.given(holdService.place(Mockito.any(Hold.class)))
+                .willThrow(new BusinessException("Book is not loaned, borrow it instead"));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(HOLD_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(createHoldDTO()));
+
+        // verification
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors[0]").value("Book is not loaned, borrow it instead"));
+    }
+
+    @Test
+    @DisplayName("Should get a hold ready for pickup")
+    public void getHoldTest() throws Exception {
+        // scenery
+        Hold hold = createHold(createValidBook());
+        hold.setPromotedAt(LocalDateTime.now());
+
+        BDDMockito.given(holdService.getById(1L)).willReturn(Optional.of(hold));
+        BDDMockito.given(holdService.position(hold)).willReturn(1);
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(HOLD_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("isbn").value("9780134685991"))
+                .andExpect( jsonPath("position").value(1))
+                .andExpect( jsonPath("ready").value(true));
+    }
+
+    @Test
+    @DisplayName("Should cancel a hold")
+    public void cancelHoldTest() throws Exception {
+        // scenery
+        Hold hold = createHold(createValidBook());
+        BDDMockito.given(holdService.getById(1L)).willReturn(Optional.of(hold));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.delete(HOLD_API.concat("/1"));
+
+        // verification
+        mvc.perform(request).andExpect( status().isNoContent() );
+        verify(holdService).cancel(hold);
+    }
+
+    @Test
+    @DisplayName("Should return 404 when cancelling a hold that doesn't exist")
+    public void cancelNonExistentHoldTest() throws Exception {
+        // scenery
+        BDDMockito.given(holdService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.delete(HOLD_API.concat("/1"));
+
+        // verification
+        mvc.perform(request).andExpect( status().isNotFound() );
+        verify(holdService, Mockito.never()).cancel(Mockito.any());
+    }
+
+    private static String json(HoldDTO dto) throws Exception {
+        return new ObjectMapper().writeValueAsString(dto);
+    }
+
+    private static HoldDTO createHoldDTO() {
+        return HoldDTO.builder()
+                .isbn("9780134685991")
+                .customer("Fulano")
+                .email("fulano@email.com")
+                .build();
+    }
+
+    private static Hold createHold(Book book) {
+        return Hold.builder()
+                .id(1L)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .book(book)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Book createValidBook() {
+        return Book.builder().id(1L).isbn("9780134685991").author("Fulano").title("As aventuras").build();
+    }
+}
@@ -5,6 +5,7 @@ import br.com.itstoony.libraryapi.api.dto.LoanFilterDTO;
 import br.com.itstoony.libraryapi.api.dto.ReturnedLoanDTO;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.api.stream.LoanEventBroadcaster;
 import br.com.itstoony.libraryapi.exception.BusinessException;
 import br.com.itstoony.libraryapi.service.BookService;
 import br.com.itstoony.libraryapi.service.LoanService;
@@ -24,15 +25,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
@@ -52,6 +57,9 @@ public class LoanControllerTest {
     @MockBean
     private LoanService loanService;
 
+    @MockBean
+    private LoanEventBroadcaster broadcaster;
+
     @Test
     @DisplayName("Should create a loan")
     public void createLoanTest() throws Exception {
@@ -145,6 +153,47 @@ public class LoanControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should open the loan event stream of the book of an isbn")
+    public void eventsByIsbnTest() throws Exception {
+        // scenery
+        Book book = createValidBook();
+        book.setId(1L);
+        BDDMockito.given( bookService.getBookByIsbn("9780134685991") ).willReturn( Optional.of(book) );
+        BDDMockito.given( broadcaster.subscribe(1L) ).willReturn( new SseEmitter() );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("/events?isbn=9780134685991"))
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect( request().asyncStarted() );
+
+        verify( broadcaster ).subscribe(1L);
+    }
+
+    @Test
+    @DisplayName("Should not open a loan event stream for an unknown isbn")
+    public void eventsByUnknownIsbnTest() throws Exception {
+        // scenery
+        BDDMockito.given( bookService.getBookByIsbn("9780134685991") ).willReturn( Optional.empty() );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("/events?isbn=9780134685991"))
+                .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON);
+
+        // verification
+        mvc
+                .perform(request)
+                .andExpect( status().isBadRequest() );
+
+        verify( broadcaster, Mockito.never() ).subscribe(Mockito.any());
+    }
+
     @Test
     @DisplayName("Should return a book")
     public void returnBookTest() throws Exception {
@@ -243,8 +292,9 @@ public class LoanControllerTest {
         Loan loan = createValidLoan(book);
         loan.setId(id);
 
-        BDDMockito.given( loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)) )
-                .willReturn(new PageImpl<>(Collections.singletonList(loan), Pageable.ofSize(100), 1) );
+        BDDMockito.given( loanService.findAsync(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)) )
+                .willReturn(CompletableFuture.completedFuture(
+                        new PageImpl<>(Collections.singletonList(loan), Pageable.ofSize(100), 1)) );
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
                 loan.getBook().getIsbn(), loan.getCustomer());
@@ -256,16 +306,44 @@ public class LoanControllerTest {
                 .accept(MediaType.APPLICATION_JSON);
 
         // verification
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
         mvc
-                .perform(request)
+                .perform(asyncDispatch(started))
                 .andExpect( status().isOk() )
                 .andExpect( jsonPath("content", hasSize(1)))
                 .andExpect( jsonPath("totalElements").value(1))
-                .andExpect( jsonPath("pageable.pageSize").value(10))
-                .andExpect( jsonPath("pageable.pageNumber").value(0));
+                .andExpect( jsonPath("size").value(10))
+                .andExpect( jsonPath("page").value(0));
     }
 
 
+    @Test
+    @DisplayName("Should filter loans returning only the requested fields")
+    public void findLoanWithFieldsTest() throws Exception {
+        // scenery
+        Loan loan = createValidLoan(createValidBook());
+        loan.setId(1L);
+
+        BDDMockito.given( loanService.findAsync(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)) )
+                .willReturn(CompletableFuture.completedFuture(
+                        new PageImpl<>(Collections.singletonList(loan), Pageable.ofSize(100), 1)) );
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?costumer=Fulano&fields=id,customer"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verification
+        MvcResult started = mvc.perform(request).andExpect( request().asyncStarted() ).andReturn();
+        mvc
+                .perform(asyncDispatch(started))
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content[0].id").value(1))
+                .andExpect( jsonPath("content[0].customer").value("Fulano"))
+                .andExpect( jsonPath("content[0].book").doesNotExist())
+                .andExpect( jsonPath("totalElements").value(1));
+    }
+
     private Loan createValidLoan(Book book) {
         return Loan.builder()
                 .book(book)
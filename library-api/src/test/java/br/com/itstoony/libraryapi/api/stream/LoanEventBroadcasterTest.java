@@ -0,0 +1,181 @@
+package br.com.itstoony.libraryapi.api.stream;
+
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.service.event.LoanCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.LoanEvent;
+import br.com.itstoony.libraryapi.service.event.LoanReturnedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LoanEventBroadcasterTest {
+
+    // drains scheduled on the sender threads, not run: what the subscribers would have been sent stays buffered
+    List<Runnable> drains;
+
+    LoanEventBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        drains = new ArrayList<>();
+        broadcaster = new LoanEventBroadcaster(drains::add, SseEmitter::new, new SimpleMeterRegistry(), 3, 2, 60_000);
+    }
+
+    @Test
+    @DisplayName("Should offer a change only to the subscribers of its book and to those of every book")
+    public void fanOutTest() {
+        // scenery
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(2L);
+        broadcaster.subscribe(null);
+
+        // execution
+        broadcaster.onLoanEvents(List.of(created(1L)));
+
+        // verification
+        assertThat(drains).hasSize(2);
+        assertThat(broadcaster.subscribers()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should schedule one drain per subscriber however many changes are buffered")
+    public void singleDrainTest() {
+        // scenery
+        broadcaster.subscribe(1L);
+
+        // execution
+        broadcaster.onLoanEvents(List.of(created(1L), returned(1L)));
+
+        // verification
+        assertThat(drains).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should disconnect a subscriber that fell behind its buffer")
+    public void laggingSubscriberTest() {
+        // scenery
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(2L);
+
+        // execution
+        broadcaster.onLoanEvents(List.of(created(1L), returned(1L), created(1L)));
+
+        // verification
+        assertThat(broadcaster.subscribers()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not miss changes when a drain runs")
+    public void drainTest() {
+        // scenery
+        broadcaster.subscribe(1L);
+        broadcaster.onLoanEvents(List.of(created(1L), returned(1L)));
+
+        // execution
+        drains.remove(0).run();
+        broadcaster.onLoanEvents(List.of(created(1L), returned(1L)));
+
+        // verification
+        assertThat(broadcaster.subscribers()).isEqualTo(1);
+        assertThat(drains).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse subscribers over the limit")
+    public void maxSubscribersTest() {
+        // scenery
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+
+        // execution
+        Throwable exception = catchThrowable(() -> broadcaster.subscribe(1L));
+
+        // verification
+        assertThat(exception).isInstanceOf(ApiStatusException.class);
+        assertThat(broadcaster.subscribers()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should keep sending to the other subscribers while a write is blocked")
+    public void blockedWriteTest() throws Exception {
+        // scenery
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sent = new CountDownLatch(1);
+        Queue<SseEmitter> emitters = new ArrayDeque<>(List.of(
+                // a client that stopped reading, its write ignores interrupts like a socket write does
+                new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        blocked.countDown();
+                        awaitUninterruptibly(release);
+                    }
+                },
+                new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        sent.countDown();
+                    }
+                }));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ThreadPoolExecutor sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        LoanEventBroadcaster stalling = new LoanEventBroadcaster(sender, emitters::poll, registry, 3, 2, 10);
+        stalling.subscribe(1L);
+        stalling.subscribe(2L);
+        stalling.onLoanEvents(List.of(created(1L)));
+        blocked.await(5, TimeUnit.SECONDS);
+
+        try {
+            // execution
+            stalling.onLoanEvents(List.of(created(2L)));
+            Thread.sleep(50);
+            stalling.abandonStalledWrites();
+
+            // verification
+            assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(stalling.subscribers()).isEqualTo(1);
+            assertThat(registry.get("library.loans.stream.stalled-disconnected").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            stalling.shutdown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LoanEvent created(Long bookId) {
+        return new LoanCreatedEvent(1L, bookId, "9780134685991", "Fulano", Instant.now());
+    }
+
+    private static LoanEvent returned(Long bookId) {
+        return new LoanReturnedEvent(1L, bookId, "9780134685991", "Fulano", Instant.now());
+    }
+}
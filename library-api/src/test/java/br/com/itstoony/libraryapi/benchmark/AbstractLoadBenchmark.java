@@ -0,0 +1,113 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Closed-loop load test against an endpoint that blocks for {@link #BLOCKING_MILLIS} (standing in for
+ * a slow remote call or query) and then runs a JDBC query. Subclasses start the application with
+ * platform or virtual request threads. Run with {@code mvn test -Pbenchmark}; the concurrency can be
+ * changed with {@code -Dbenchmark.concurrency}.
+ */
+@Tag("benchmark")
+abstract class AbstractLoadBenchmark {
+
+    static final long BLOCKING_MILLIS = 20;
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1_000);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 50);
+
+    @LocalServerPort
+    int port;
+
+    abstract String mode();
+
+    @Test
+    @DisplayName("Throughput and latency of blocking requests at high concurrency")
+    public void blockingLoadBenchmark() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(32))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/benchmark/blocking"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<long[]>> results = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int c = 0; c < CONCURRENCY; c++) {
+            results.add(clients.submit(() -> {
+                long[] latencies = new long[REQUESTS_PER_CLIENT];
+                for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    latencies[i] = response.statusCode() == 200 ? System.nanoTime() - sent : -1;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[CONCURRENCY * REQUESTS_PER_CLIENT];
+        int position = 0;
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            System.arraycopy(latencies, 0, all, position, latencies.length);
+            position += latencies.length;
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        long failures = Arrays.stream(all).filter(latency -> latency < 0).count();
+        long[] ok = Arrays.stream(all).filter(latency -> latency >= 0).sorted().toArray();
+
+        System.out.printf("[benchmark] %-8s concurrency=%d requests=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms failures=%d%n",
+                mode(), CONCURRENCY, all.length,
+                all.length / (elapsed / 1_000_000_000.0),
+                percentile(ok, 0.50), percentile(ok, 0.99), failures);
+
+        assertThat(ok).isNotEmpty();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    @TestConfiguration
+    static class BlockingEndpointConfig {
+
+        @Bean
+        RouterFunction<ServerResponse> blockingRoute(BookRepository repository) {
+            return RouterFunctions.route(RequestPredicates.GET("/benchmark/blocking"), request -> {
+                Thread.sleep(BLOCKING_MILLIS);
+                return ServerResponse.ok().body(repository.count());
+            });
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import br.com.itstoony.libraryapi.logging.RingBufferAsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how long a request thread spends in a {@code log.info} call like the ones in BookController,
+ * with the file appender called directly and behind {@link RingBufferAsyncAppender}.
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.logging.stall-every} makes the file
+ * stall for 5 ms every n events, like a slow fsync.
+ */
+@Tag("benchmark")
+public class AsyncLoggingBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+    private static final int EVENTS = Integer.getInteger("benchmark.logging.events", 20_000);
+    private static final int STALL_EVERY = Integer.getInteger("benchmark.logging.stall-every", 2_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Benchmark of synchronous and asynchronous file logging")
+    public void asyncLoggingBenchmark() throws Exception {
+        LoggerContext context = new LoggerContext();
+
+        FileAppender<ILoggingEvent> syncFile = file(context, "sync.log");
+        report("sync", context, syncFile);
+        syncFile.stop();
+
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC_FILE");
+        async.addAppender(file(context, "async.log"));
+        async.start();
+        report("async", context, async);
+        long dropped = async.getDroppedCount();
+        async.stop();
+
+        System.out.printf("[benchmark] async dropped=%d of %d%n", dropped, THREADS * EVENTS);
+        context.stop();
+        assertThat(async.isStarted()).isFalse();
+    }
+
+    private void report(String name, LoggerContext context, Appender<ILoggingEvent> appender) throws Exception {
+        Logger logger = context.getLogger("benchmark." + name);
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+
+        run(logger, new long[THREADS][EVENTS / 10]);
+        long[][] latencies = new long[THREADS][EVENTS];
+        long elapsed = run(logger, latencies);
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("[benchmark] %-6s threads=%d events=%d throughput=%.0f/s p50=%.1f us p99=%.1f us max=%.1f ms%n",
+                name, THREADS, all.length, all.length / (elapsed / 1_000_000_000.0),
+                all[all.length / 2] / 1_000.0, all[(int) (all.length * 0.99)] / 1_000.0, all[all.length - 1] / 1_000_000.0);
+    }
+
+    private static long run(Logger logger, long[][] latencies) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long start = System.nanoTime();
+
+        for (int t = 0; t < THREADS; t++) {
+            long[] samples = latencies[t];
+            executor.execute(() -> {
+                for (int i = 0; i < samples.length; i++) {
+                    long before = System.nanoTime();
+                    logger.info(" obtaining details for book id: {} ", i);
+                    samples[i] = System.nanoTime() - before;
+                }
+                done.countDown();
+            });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private FileAppender<ILoggingEvent> file(LoggerContext context, String fileName) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5level --- [%15.15thread] %-40.40logger{39} : %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new StallingFileAppender();
+        appender.setContext(context);
+        appender.setName("FILE");
+        appender.setFile(dir.resolve(fileName).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private static class StallingFileAppender extends FileAppender<ILoggingEvent> {
+
+        private long written;
+
+        @Override
+        protected void writeOut(ILoggingEvent event) throws IOException {
+            super.writeOut(event);
+            if (STALL_EVERY > 0 && ++written % STALL_EVERY == 0) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
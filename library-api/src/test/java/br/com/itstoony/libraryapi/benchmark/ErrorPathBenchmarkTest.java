@@ -0,0 +1,132 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import br.com.itstoony.libraryapi.api.ApplicationControllerAdvice;
+import br.com.itstoony.libraryapi.api.exception.ApiErrors;
+import br.com.itstoony.libraryapi.api.exception.ApiStatusException;
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.api.resource.BookController;
+import br.com.itstoony.libraryapi.api.resource.LoanController;
+import br.com.itstoony.libraryapi.exception.BusinessException;
+import br.com.itstoony.libraryapi.service.BookService;
+import br.com.itstoony.libraryapi.service.BookSuggestionService;
+import br.com.itstoony.libraryapi.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of the expected failures (404 for an unknown book, 400 for a book already loaned): first the
+ * exception plus error body alone, thrown below a call stack as deep as a servlet request's, with a
+ * regular exception and with the stackless ones, then the whole request through MockMvc.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@WebMvcTest(controllers = {BookController.class, LoanController.class},
+        properties = "application.ratelimit.enabled=false")
+public class ErrorPathBenchmarkTest {
+
+    private static final int STACK_DEPTH = Integer.getInteger("benchmark.errors.stack-depth", 120);
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.errors.iterations", 100_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.errors.requests", 20_000);
+
+    private static final BusinessException BOOK_ALREADY_LOANED = new BusinessException("Book already loaned");
+
+    private final ApplicationControllerAdvice advice = new ApplicationControllerAdvice();
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    BookSuggestionService suggestionService;
+
+    @Test
+    @DisplayName("Benchmark of the 404 and 400 error paths")
+    public void errorPathBenchmark() throws Exception {
+        report("404 with stack", () -> new ResponseStatusException(HttpStatus.NOT_FOUND),
+                ex -> new ApiErrors((ResponseStatusException) ex));
+        report("404 stackless", () -> new ApiStatusException(HttpStatus.NOT_FOUND),
+                ex -> (ApiErrors) advice.handleResponseStatusExceptions((ResponseStatusException) ex).getBody());
+        report("400 with stack", () -> new RuntimeException("Book already loaned"),
+                ex -> new ApiErrors(ex.getMessage()));
+        report("400 stackless", () -> BOOK_ALREADY_LOANED,
+                ex -> advice.handleBusinessExceptions((BusinessException) ex));
+
+        BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(bookService.getBookByIsbn(Mockito.anyString())).willReturn(Optional.of(Book.builder().id(1L).build()));
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willThrow(BOOK_ALREADY_LOANED);
+
+        request("404 request", MockMvcRequestBuilders.get("/api/books/1"), 404);
+        request("400 request", MockMvcRequestBuilders.post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"123\",\"customer\":\"Fulano\"}"), 400);
+    }
+
+    private static void report(String name, Supplier<RuntimeException> failure, Function<RuntimeException, ApiErrors> body) {
+        for (int i = 0; i < WARMUP; i++) {
+            throwAndHandle(STACK_DEPTH, failure, body);
+        }
+
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += throwAndHandle(STACK_DEPTH, failure, body).getErrors().size();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(sink).isEqualTo(ITERATIONS);
+        System.out.printf("[benchmark] %-15s depth=%d avg=%.3f us%n", name, STACK_DEPTH, elapsed / 1_000.0 / ITERATIONS);
+    }
+
+    private static ApiErrors throwAndHandle(int depth, Supplier<RuntimeException> failure,
+                                            Function<RuntimeException, ApiErrors> body) {
+        if (depth > 0) {
+            return throwAndHandle(depth - 1, failure, body);
+        }
+        try {
+            throw failure.get();
+        } catch (RuntimeException ex) {
+            return body.apply(ex);
+        }
+    }
+
+    private void request(String name, MockHttpServletRequestBuilder request, int status) throws Exception {
+        for (int i = 0; i < REQUESTS / 10; i++) {
+            mvc.perform(request);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertThat(mvc.perform(request).andReturn().getResponse().getStatus()).isEqualTo(status);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("[benchmark] %-15s requests=%d avg=%.3f us%n", name, REQUESTS, elapsed / 1_000.0 / REQUESTS);
+    }
+}
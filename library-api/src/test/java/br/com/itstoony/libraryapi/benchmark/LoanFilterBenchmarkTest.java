@@ -0,0 +1,106 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the loan filter queries over a seeded loan table.
+ * Run with {@code mvn test -Pbenchmark}; sizes can be changed with
+ * {@code -Dbenchmark.books} and {@code -Dbenchmark.loans}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+public class LoanFilterBenchmarkTest {
+
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 20_000);
+    private static final int LOANS = Integer.getInteger("benchmark.loans", 200_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+    // isbn keys are only unique numbers here, the repository does not check them
+    private static final long ISBN_BASE = 9_790_000_000_000L;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LoanRepository repository;
+
+    @BeforeEach
+    public void seed() {
+        List<Object[]> books = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= BOOKS; i++) {
+            books.add(new Object[]{ "Title " + i, "Author " + (i % 500), String.valueOf(ISBN_BASE + i), ISBN_BASE + i });
+            if (books.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", books);
+                books.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", books);
+
+        Long firstBookId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM book", Long.class);
+        Date loanDate = Date.valueOf(LocalDate.now());
+
+        List<Object[]> loans = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < LOANS; i++) {
+            loans.add(new Object[]{ "customer-" + (i % 10_000), firstBookId + (i % BOOKS), "c" + i + "@mail.com", loanDate, Boolean.TRUE });
+            if (loans.size() == BATCH_SIZE) {
+                insertLoans(loans);
+                loans.clear();
+            }
+        }
+        insertLoans(loans);
+    }
+
+    @Test
+    @DisplayName("Benchmark of the loan filter queries")
+    public void loanFilterBenchmark() {
+        PageRequest page = PageRequest.of(0, 20);
+
+        report("isbn only", () -> repository.findByBookIsbn(ISBN_BASE + 42, page));
+        report("costumer only", () -> repository.findByCostumer("customer-42", page));
+        report("isbn or costumer", () -> repository.findByBookIsbnOrCostumer(ISBN_BASE + 42, "customer-43", page));
+
+        assertThat(repository.findByBookIsbn(ISBN_BASE + 42, page).getTotalElements()).isEqualTo(LOANS / BOOKS);
+    }
+
+    private void insertLoans(List<Object[]> loans) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO loan (customer, id_book, customer_email, loan_date, returned) VALUES (?, ?, ?, ?, ?)",
+                loans);
+    }
+
+    private void report(String name, Supplier<Page<Loan>> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("[benchmark] %-18s loans=%d avg=%.3f ms%n",
+                name, LOANS, elapsed / 1_000_000.0 / ITERATIONS);
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "application.ratelimit.enabled=false", "spring.boot.admin.client.enabled=false" })
+@Import(AbstractLoadBenchmark.BlockingEndpointConfig.class)
+@ActiveProfiles("test")
+public class PlatformThreadLoadBenchmarkTest extends AbstractLoadBenchmark {
+
+    @Override
+    String mode() {
+        return "platform";
+    }
+}
@@ -0,0 +1,203 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times every query of the book and loan repositories while the loan table grows, on the file-db profile so that
+ * the larger sizes don't have to fit in the heap. Each book has {@value #LOANS_PER_BOOK} loans and each customer
+ * {@value #LOANS_PER_CUSTOMER}, so a lookup finds as many rows at every size and only the cost of reaching them grows;
+ * the scans (loaned books, reminders, late loans) also return more rows as the table grows.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; the sizes can be changed with {@code -Dbenchmark.scaling.loans}, the database
+ * file is left in {@code target/benchmark}. Not transactional: the seed is committed, as it would be in production.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "application.db.file=./target/benchmark/scaling",
+        "spring.jpa.hibernate.ddl-auto=create"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles({ "test", "file-db" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RepositoryScalingBenchmarkTest {
+
+    private static final long[] SIZES = Arrays.stream(
+            System.getProperty("benchmark.scaling.loans", "10000,100000,1000000,10000000").split(","))
+            .mapToLong(size -> Long.parseLong(size.trim()))
+            .toArray();
+    private static final int LOANS_PER_BOOK = 20;
+    private static final int LOANS_PER_CUSTOMER = 10;
+    // one loan in that many is still out, late and due for a notice
+    private static final int NOT_RETURNED_EVERY = 2_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int WARMUP = 20;
+    private static final int MAX_ITERATIONS = 200;
+    private static final long MAX_NANOS_PER_QUERY = 2_000_000_000L;
+    // isbn keys are only unique numbers here, the repository does not check them
+    private static final long ISBN_BASE = 9_790_000_000_000L;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    private final Random random = new Random(42);
+
+    // query name to its average latency at each size, in ms
+    private final Map<String, List<Double>> results = new LinkedHashMap<>();
+
+    private long books;
+
+    private long loans;
+
+    private long firstBookId;
+
+    @Test
+    @DisplayName("Benchmark of the repository queries as the data grows")
+    public void repositoryScalingBenchmark() {
+        for (long size : SIZES) {
+            grow(size);
+
+            report("existsByIsbnKey", i -> bookRepository.existsByIsbnKey(isbnKey(i)));
+            report("findByIsbnKey (query cache)", i -> bookRepository.findByIsbnKey(isbnKey(i)));
+            report("findByIsbnKeyIn (10)", i -> bookRepository.findByIsbnKeyIn(
+                    LongStream.range(0, 10).mapToObj(k -> isbnKey((i + k * 7919) % books)).toList()));
+            report("findByIdGreaterThanOrderById", i -> bookRepository.findByIdGreaterThanOrderById(
+                    bookId(i), PageRequest.ofSize(100)));
+            report("findIdsAfter", i -> bookRepository.findIdsAfter(bookId(i), PageRequest.ofSize(1_000)));
+
+            report("existsByBookAndNotReturned", i -> loanRepository.existsByBookAndNotReturned(book(i)));
+            report("findByBook", i -> loanRepository.findByBook(book(i), PageRequest.of(0, 20)));
+            report("findByBookIsbn", i -> loanRepository.findByBookIsbn(isbnKey(i), PageRequest.of(0, 20)));
+            report("findByCostumer", i -> loanRepository.findByCostumer(customer(i), PageRequest.of(0, 20)));
+            report("findByBookIsbnOrCostumer", i -> loanRepository.findByBookIsbnOrCostumer(
+                    isbnKey(i), customer(i + 1), PageRequest.of(0, 20)));
+            report("findLoanedBookIds", i -> loanRepository.findLoanedBookIds());
+            report("findDueForReminder", i -> loanRepository.findDueForReminder(LocalDate.now()));
+            report("findByLoansDateLessThanAndNotReturned", i -> loanRepository.findByLoansDateLessThanAndNotReturned(
+                    LocalDate.now().minusDays(3)));
+
+            assertThat(loanRepository.findByBookIsbn(isbnKey(books - 1), PageRequest.of(0, 20)).getTotalElements())
+                    .isEqualTo(LOANS_PER_BOOK);
+        }
+
+        System.out.printf("[benchmark] %-38s%s%n", "avg ms by loans", Arrays.stream(SIZES)
+                .mapToObj(size -> String.format("%12d", size))
+                .reduce("", String::concat));
+        results.forEach((name, averages) -> System.out.printf("[benchmark] %-38s%s%n", name, averages.stream()
+                .map(average -> String.format("%12.3f", average))
+                .reduce("", String::concat)));
+    }
+
+    /**
+     * Adds the loans up to {@code size}, and their books: loan {@code i} is of book {@code i / LOANS_PER_BOOK}.
+     */
+    private void grow(long size) {
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+
+        long targetBooks = (size + LOANS_PER_BOOK - 1) / LOANS_PER_BOOK;
+        for (long i = books; i < targetBooks; i++) {
+            batch.add(new Object[]{ "Title " + i, "Author " + (i % 500), String.valueOf(ISBN_BASE + i), ISBN_BASE + i });
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", batch);
+        batch.clear();
+        books = targetBooks;
+        firstBookId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM book", Long.class);
+
+        LocalDate today = LocalDate.now();
+        for (long i = loans; i < size; i++) {
+            boolean returned = i % NOT_RETURNED_EVERY != NOT_RETURNED_EVERY - 1;
+            LocalDate loanDate = returned ? today.minusDays(i % 365) : today.minusDays(10);
+            batch.add(new Object[]{ customer(i / LOANS_PER_CUSTOMER), firstBookId + i / LOANS_PER_BOOK,
+                    "c" + i + "@mail.com", Date.valueOf(loanDate), returned, returned ? null : Date.valueOf(today) });
+            if (batch.size() == BATCH_SIZE) {
+                insertLoans(batch);
+                batch.clear();
+            }
+        }
+        insertLoans(batch);
+        loans = size;
+
+        System.out.printf("[benchmark] seeded loans=%d books=%d in %d ms%n",
+                loans, books, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void insertLoans(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO loan (customer, id_book, customer_email, loan_date, returned, " +
+                "next_notify_at) VALUES (?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    /**
+     * Runs the query on random books, or customers, {@value #MAX_ITERATIONS} times or for
+     * {@value #MAX_NANOS_PER_QUERY} ns, whichever comes first.
+     */
+    private void report(String name, IntFunction<?> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.apply(random.nextInt((int) books));
+        }
+
+        int iterations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            query.apply(random.nextInt((int) books));
+            iterations++;
+            elapsed = System.nanoTime() - start;
+        } while (iterations < MAX_ITERATIONS && elapsed < MAX_NANOS_PER_QUERY);
+
+        double average = elapsed / 1_000_000.0 / iterations;
+        results.computeIfAbsent(name, key -> new ArrayList<>()).add(average);
+        System.out.printf("[benchmark] %-38s loans=%d avg=%.3f ms%n", name, loans, average);
+    }
+
+    private Long bookId(long book) {
+        return firstBookId + book;
+    }
+
+    private Book book(long book) {
+        return Book.builder().id(bookId(book)).build();
+    }
+
+    private static long isbnKey(long book) {
+        return ISBN_BASE + book;
+    }
+
+    private static String customer(long customer) {
+        return "customer-" + customer;
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import br.com.itstoony.libraryapi.snapshot.CatalogSnapshotService;
+import br.com.itstoony.libraryapi.snapshot.SnapshotReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a seeded catalog to a snapshot and imports it back into the emptied tables, reporting rows per second.
+ * Run with {@code mvn test -Pbenchmark}; sizes can be changed with
+ * {@code -Dbenchmark.books} and {@code -Dbenchmark.loans}.
+ * <p>
+ * Not transactional: the snapshot service runs its own transactions, and the import restarts the identities,
+ * which H2 commits.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SnapshotBenchmarkTest {
+
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 20_000);
+    private static final int LOANS = Integer.getInteger("benchmark.loans", 200_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ROUNDS = 3;
+    // isbn keys are only unique numbers here, the repository does not check them
+    private static final long ISBN_BASE = 9_790_000_000_000L;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void seed() {
+        List<Object[]> books = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= BOOKS; i++) {
+            books.add(new Object[]{ "Title " + i, "Author " + (i % 500), String.valueOf(ISBN_BASE + i), ISBN_BASE + i });
+            if (books.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", books);
+                books.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", books);
+
+        Long firstBookId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM book", Long.class);
+        Date loanDate = Date.valueOf(LocalDate.now());
+
+        List<Object[]> loans = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < LOANS; i++) {
+            loans.add(new Object[]{ "customer-" + (i % 10_000), firstBookId + (i % BOOKS), "c" + i + "@mail.com", loanDate, i % 3 == 0 });
+            if (loans.size() == BATCH_SIZE) {
+                insertLoans(loans);
+                loans.clear();
+            }
+        }
+        insertLoans(loans);
+    }
+
+    @AfterEach
+    public void clean() {
+        jdbcTemplate.update("DELETE FROM loan");
+        jdbcTemplate.update("DELETE FROM book");
+    }
+
+    @Test
+    @DisplayName("Benchmark of the snapshot export and import")
+    public void snapshotBenchmark() throws IOException {
+        CatalogSnapshotService service = new CatalogSnapshotService(jdbcTemplate, transactionManager, 5_000);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            Path file = directory.resolve("catalog-" + round + ".snap");
+
+            SnapshotReport exported = service.export(file);
+            report("export", round, exported);
+
+            clean();
+            SnapshotReport imported = service.importFrom(file);
+            report("import", round, imported);
+
+            assertThat(imported.books()).isEqualTo(BOOKS);
+            assertThat(imported.loans()).isEqualTo(LOANS);
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan WHERE returned", Long.class))
+                .isEqualTo((LOANS + 2) / 3);
+    }
+
+    private void insertLoans(List<Object[]> loans) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO loan (customer, id_book, customer_email, loan_date, returned) VALUES (?, ?, ?, ?, ?)",
+                loans);
+    }
+
+    private static void report(String name, int round, SnapshotReport report) {
+        System.out.printf("[benchmark] %-6s round=%d rows=%d bytes=%d time=%d ms rows/s=%d%n",
+                name, round, report.books() + report.loans(), report.bytes(), report.millis(), report.rowsPerSecond());
+    }
+}
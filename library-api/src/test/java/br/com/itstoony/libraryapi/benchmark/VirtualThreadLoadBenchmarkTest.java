@@ -0,0 +1,23 @@
+package br.com.itstoony.libraryapi.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "application.ratelimit.enabled=false", "spring.boot.admin.client.enabled=false" })
+@Import(AbstractLoadBenchmark.BlockingEndpointConfig.class)
+@ActiveProfiles({ "test", "virtual-threads" })
+@EnabledIf("runningOnJava21")
+public class VirtualThreadLoadBenchmarkTest extends AbstractLoadBenchmark {
+
+    static boolean runningOnJava21() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @Override
+    String mode() {
+        return "virtual";
+    }
+}
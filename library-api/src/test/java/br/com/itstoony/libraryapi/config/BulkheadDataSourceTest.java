@@ -0,0 +1,104 @@
+package br.com.itstoony.libraryapi.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkheadDataSourceTest {
+
+    DataSource target;
+
+    Bulkhead jobs;
+
+    BulkheadDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        target = Mockito.mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+        jobs = new Bulkhead("jobs", 1, 0);
+        dataSource = new BulkheadDataSource(target, Map.of(Workload.JOBS, jobs));
+    }
+
+    @Test
+    @DisplayName("Should hold a workload to its budget until its connection is closed")
+    public void budgetTest() throws SQLException {
+        // scenery
+        Workload previous = Workload.JOBS.enter();
+        try {
+            Connection connection = dataSource.getConnection();
+
+            // execution
+            Throwable exception = catchThrowable(dataSource::getConnection);
+            connection.close();
+            connection.close();
+
+            // verification
+            assertThat(exception).isInstanceOf(BulkheadFullException.class);
+            assertThat(jobs.getActive()).isEqualTo(0);
+            dataSource.getConnection();
+            assertThat(jobs.getActive()).isEqualTo(1);
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Should not budget the threads of other workloads")
+    public void otherWorkloadTest() throws SQLException {
+        // scenery
+        Workload.JOBS.wrap(() -> {
+            try {
+                dataSource.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }).run();
+
+        // execution
+        dataSource.getConnection();
+        Workload previous = Workload.API_READ.enter();
+        try {
+            dataSource.getConnection();
+        } finally {
+            Workload.restore(previous);
+        }
+
+        // verification
+        assertThat(Workload.current()).isNull();
+        assertThat(jobs.getActive()).isEqualTo(1);
+        verify(target, times(3)).getConnection();
+    }
+
+    @Test
+    @DisplayName("Should give the budget back when the pool fails to give a connection")
+    public void poolFailureTest() throws SQLException {
+        // scenery
+        when(target.getConnection()).thenThrow(new SQLException("Connection is not available"));
+
+        // execution
+        Throwable exception = catchThrowable(() -> Workload.JOBS.wrap(() -> {
+            try {
+                dataSource.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }).run());
+
+        // verification
+        assertThat(exception).hasCauseInstanceOf(SQLException.class);
+        assertThat(jobs.getActive()).isEqualTo(0);
+    }
+}
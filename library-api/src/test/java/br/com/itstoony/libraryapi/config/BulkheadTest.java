@@ -0,0 +1,57 @@
+package br.com.itstoony.libraryapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BulkheadTest {
+
+    @Test
+    @DisplayName("Should refuse a connection over the limit once the wait is over")
+    public void limitTest() throws Exception {
+        // scenery
+        Bulkhead bulkhead = new Bulkhead("jobs", 2, 10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkhead.bindTo(registry);
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        // execution
+        Throwable exception = catchThrowable(bulkhead::acquire);
+
+        // verification
+        assertThat(exception).isInstanceOf(BulkheadFullException.class).hasMessageContaining("jobs");
+        assertThat(bulkhead.getActive()).isEqualTo(2);
+        assertThat(registry.get("library.bulkhead.connections.rejected").tag("workload", "jobs").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("library.bulkhead.connections.active").tag("workload", "jobs").gauge().value())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should hand a released connection to a waiting caller")
+    public void releaseTest() throws Exception {
+        // scenery
+        Bulkhead bulkhead = new Bulkhead("api-read", 1, 5_000);
+        bulkhead.acquire();
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            bulkhead.release();
+        });
+
+        // execution
+        releaser.start();
+        bulkhead.acquire();
+        releaser.join();
+
+        // verification
+        assertThat(bulkhead.getActive()).isEqualTo(1);
+    }
+}
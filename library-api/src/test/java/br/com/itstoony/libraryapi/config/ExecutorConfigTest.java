@@ -0,0 +1,82 @@
+package br.com.itstoony.libraryapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ExecutorConfigTest {
+
+    SimpleMeterRegistry registry;
+
+    ThreadPoolTaskExecutor mailExecutor;
+
+    CountDownLatch release;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        registry = new SimpleMeterRegistry();
+        mailExecutor = (ThreadPoolTaskExecutor) new ExecutorConfig().mailTaskExecutor(registry, false, 1, 1);
+        mailExecutor.initialize();
+
+        // one mail being sent, one waiting: the queue is full
+        release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        mailExecutor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        started.await(5, TimeUnit.SECONDS);
+        mailExecutor.execute(() -> await(release));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        mailExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should send the mail of a scheduled job on its own thread when the mail queue is full")
+    public void jobsRunInlineTest() {
+        // scenery
+        AtomicReference<Thread> sender = new AtomicReference<>();
+
+        // execution
+        Workload.JOBS.wrap(() -> mailExecutor.execute(() -> sender.set(Thread.currentThread()))).run();
+
+        // verification
+        assertThat(sender.get()).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    @DisplayName("Should refuse the mail of the loan event worker and of a request when the mail queue is full")
+    public void othersRejectedTest() {
+        // execution
+        Throwable fromEvents = catchThrowable(() -> Workload.EVENTS.wrap(() -> mailExecutor.execute(() -> { })).run());
+        Throwable fromRequest = catchThrowable(() -> Workload.API_WRITE.wrap(() -> mailExecutor.execute(() -> { })).run());
+
+        // verification
+        assertThat(fromEvents).isInstanceOf(TaskRejectedException.class);
+        assertThat(fromRequest).isInstanceOf(TaskRejectedException.class);
+        assertThat(registry.get("library.executor.rejected").tag("executor", "mail").counter().count()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.itstoony.libraryapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferAsyncAppenderTest {
+
+    @Test
+    @DisplayName("Should keep the order and reject offers when the ring buffer is full")
+    public void ringBufferTest() {
+        // scenery
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+
+        // execution
+        boolean[] offered = new boolean[5];
+        for (int i = 0; i < offered.length; i++) {
+            offered[i] = buffer.offer(i);
+        }
+
+        // verification
+        assertThat(buffer.capacity()).isEqualTo(4);
+        assertThat(offered).containsExactly(true, true, true, true, false);
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(List.of(buffer.poll(), buffer.poll(), buffer.poll(), buffer.poll())).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should write every event on the background thread and flush them on stop")
+    public void asyncDeliveryTest() {
+        // scenery
+        LoggerContext context = new LoggerContext();
+        RecordingAppender target = new RecordingAppender(null);
+        RingBufferAsyncAppender async = async(context, target, 16, false);
+        Logger logger = logger(context, async);
+
+        // execution
+        for (int i = 0; i < 10; i++) {
+            logger.info("event {}", i);
+        }
+        async.stop();
+
+        // verification
+        assertThat(target.events).hasSize(10);
+        assertThat(target.events.get(0).getFormattedMessage()).isEqualTo("event 0");
+        assertThat(target.threads).allMatch(name -> name.startsWith("async-log-"));
+        assertThat(async.getDroppedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop INFO but keep WARN when the buffer is under pressure")
+    public void dropInfoUnderPressureTest() throws InterruptedException {
+        // scenery
+        LoggerContext context = new LoggerContext();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingAppender target = new RecordingAppender(release);
+        RingBufferAsyncAppender async = async(context, target, 4, false);
+        async.setDiscardingThreshold(2);
+        Logger logger = logger(context, async);
+        logger.info("blocks the writer");
+        while (async.getQueueSize() > 0) {
+            Thread.onSpinWait();
+        }
+
+        // execution
+        logger.info("queued 1");
+        logger.info("queued 2");
+        logger.info("dropped");
+        logger.warn("kept");
+        release.countDown();
+        async.stop();
+
+        // verification
+        assertThat(async.getDroppedCount()).isEqualTo(1);
+        assertThat(target.events).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("blocks the writer", "queued 1", "queued 2", "kept");
+    }
+
+    @Test
+    @DisplayName("Should drop WARN too when the buffer is full and never-block is set")
+    public void neverBlockTest() {
+        // scenery
+        LoggerContext context = new LoggerContext();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingAppender target = new RecordingAppender(release);
+        RingBufferAsyncAppender async = async(context, target, 2, true);
+        async.setDiscardingThreshold(0);
+        Logger logger = logger(context, async);
+        logger.warn("blocks the writer");
+        while (async.getQueueSize() > 0) {
+            Thread.onSpinWait();
+        }
+
+        // execution
+        logger.warn("queued 1");
+        logger.warn("queued 2");
+        logger.error("dropped");
+        release.countDown();
+        async.stop();
+
+        // verification
+        assertThat(async.getDroppedCount()).isEqualTo(1);
+        assertThat(target.events).hasSize(3);
+    }
+
+    private static RingBufferAsyncAppender async(LoggerContext context, RecordingAppender target, int capacity, boolean neverBlock) {
+        target.setContext(context);
+        target.start();
+
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("test");
+        async.setCapacity(capacity);
+        async.setNeverBlock(neverBlock);
+        async.setMaxFlushTime(5_000);
+        async.addAppender(target);
+        async.start();
+        return async;
+    }
+
+    private static Logger logger(LoggerContext context, RingBufferAsyncAppender async) {
+        Logger logger = context.getLogger("test");
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        return logger;
+    }
+
+    private static class RecordingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch release;
+
+        private RecordingAppender(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            events.add(event);
+            threads.add(Thread.currentThread().getName());
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
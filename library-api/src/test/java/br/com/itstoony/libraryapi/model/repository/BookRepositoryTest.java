@@ -1,16 +1,26 @@
 package br.com.itstoony.libraryapi.model.repository;
 
 import br.com.itstoony.libraryapi.api.model.entity.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 //@ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -23,15 +33,24 @@ public class BookRepositoryTest {
     @Autowired
     BookRepository repository;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    // the second-level cache outlives the rolled back test transactions
+    @AfterEach
+    public void evictSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
     @Test
     @DisplayName("Deve retornar verdadeiro quando existir um livro na base com o ISBN informado")
     public void returnTrueWhenIsbnExists() {
         // scenary
-        String isbn = "123";
+        Long isbnKey = 9780134685991L;
         entityManager.persist(createValidBook());
 
         // execution
-        boolean exists = repository.existsByIsbn(isbn);
+        boolean exists = repository.existsByIsbnKey(isbnKey);
 
         // verification
         assertThat(exists).isTrue();
@@ -41,10 +60,10 @@ public class BookRepositoryTest {
     @DisplayName("Deve retornar false quando não existir um livro na base com o ISBN informado")
     public void returnTrueWhenIsbnDoesntExists() {
         // scenary
-        String isbn = "123";
+        Long isbnKey = 9780134685991L;
 
         // execution
-        boolean exists = repository.existsByIsbn(isbn);
+        boolean exists = repository.existsByIsbnKey(isbnKey);
 
         // verification
         assertThat(exists).isFalse();
@@ -125,37 +144,135 @@ public class BookRepositoryTest {
     @DisplayName("Should find a book by it's isbn")
     public void findByIsbnTest() {
         // scenery
-        String isbn = createValidBook().getIsbn();
+        Long isbnKey = createValidBook().getIsbnKey();
 
         Book book = createValidBook();
 
         entityManager.persist(book);
 
         // execution
-        Optional<Book> foundBook = repository.findByIsbn(isbn);
+        Optional<Book> foundBook = repository.findByIsbnKey(isbnKey);
 
         // validation
         assertThat(foundBook.isPresent()).isTrue();
-        assertThat(foundBook.get().getIsbn()).isEqualTo(isbn);
+        assertThat(foundBook.get().getIsbnKey()).isEqualTo(isbnKey);
+        assertThat(foundBook.get().getIsbn()).isEqualTo(book.getIsbn());
     }
 
     @Test
     @DisplayName("Should not find a book with invalid isbn")
     public void findByInvalidIsbnTest() {
         // scenery
-        String isbn = createValidBook().getIsbn();
+        Long isbnKey = createValidBook().getIsbnKey();
 
         // execution
-        Optional<Book> foundBook = repository.findByIsbn(isbn);
+        Optional<Book> foundBook = repository.findByIsbnKey(isbnKey);
 
         // validation
         assertThat( foundBook.isEmpty()).isTrue();
     }
 
+    @Test
+    @DisplayName("Should find several books by their isbn keys")
+    public void findByIsbnKeyInTest() {
+        // scenery
+        Book book = entityManager.persist(createValidBook());
+        entityManager.persist(Book.builder().isbn("9788535902778").isbnKey(9788535902778L).title("Outras").build());
+
+        // execution
+        List<Book> found = repository.findByIsbnKeyIn(List.of(9780134685991L, 9790000000001L));
+
+        // verification
+        assertThat(found).containsExactly(book);
+    }
+
+    @Test
+    @DisplayName("Should read a book again from the second-level cache")
+    public void secondLevelCacheTest() {
+        // scenery: committed, a book inserted by a transaction still running is not cached
+        Book book = entityManager.persistFlushFind(createValidBook());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        evictSecondLevelCache();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        try {
+            // execution: each call in a transaction and persistence context of its own
+            repository.findById(book.getId());
+            Optional<Book> cached = repository.findById(book.getId());
+
+            // verification
+            assertThat(cached).isPresent();
+            assertThat(statistics.getSecondLevelCachePutCount()).isEqualTo(1);
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        } finally {
+            repository.deleteById(book.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should read the isbn keys after an id without caching the books")
+    public void findIsbnKeysAfterTest() {
+        // scenery
+        Book book = entityManager.persistFlushFind(createValidBook());
+        entityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        // execution
+        List<BookIsbnKey> result = repository.findIsbnKeysAfter(book.getId() - 1, PageRequest.ofSize(10));
+
+        // verification
+        assertThat(result).containsExactly(new BookIsbnKey(book.getId(), 9780134685991L));
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not return a stale cached book or isbn query after an update")
+    public void secondLevelCacheUpdateTest() {
+        // scenery
+        Book book = entityManager.persistFlushFind(createValidBook());
+        entityManager.clear();
+        repository.findByIsbnKey(book.getIsbnKey());
+        entityManager.clear();
+
+        // execution
+        Book changed = repository.findById(book.getId()).orElseThrow();
+        changed.setTitle("Outras aventuras");
+        repository.saveAndFlush(changed);
+        entityManager.clear();
+
+        // verification
+        assertThat(repository.findById(book.getId()).orElseThrow().getTitle()).isEqualTo("Outras aventuras");
+        entityManager.clear();
+        assertThat(repository.findByIsbnKey(book.getIsbnKey()).orElseThrow().getTitle()).isEqualTo("Outras aventuras");
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should reject a second book with the same isbn key on its unique index")
+    public void duplicateIsbnKeyTest() {
+        // scenary
+        repository.saveAndFlush(createValidBook());
+
+        // execution
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(createValidBook()));
+
+        // verification
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class)
+                .hasCauseInstanceOf(ConstraintViolationException.class);
+        assertThat(((ConstraintViolationException) exception.getCause()).getConstraintName())
+                .containsIgnoringCase(Book.ISBN_KEY_INDEX);
+    }
 
     private static Book createValidBook() {
         return Book.builder()
-                .isbn("123")
+                .isbn("9780134685991")
+                .isbnKey(9780134685991L)
                 .author("Fulano")
                 .title("As aventuras")
                 .build();
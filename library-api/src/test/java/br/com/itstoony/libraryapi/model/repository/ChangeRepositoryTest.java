@@ -0,0 +1,72 @@
+package br.com.itstoony.libraryapi.model.repository;
+
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@DataJpaTest
+public class ChangeRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    ChangeRepository repository;
+
+    @Test
+    @DisplayName("Should read the changes after a sequence, in order")
+    public void findAfterTest() {
+        // scenery
+        Change first = persist(LocalDateTime.now());
+        Change second = persist(LocalDateTime.now());
+        Change third = persist(LocalDateTime.now());
+
+        // execution
+        List<Change> result = repository.findByIdGreaterThanOrderById(first.getId(), PageRequest.ofSize(10));
+
+        // verification
+        assertThat(result).containsExactly(second, third);
+        assertThat(repository.findFirstId()).isEqualTo(first.getId());
+        assertThat(repository.findLastId()).isEqualTo(third.getId());
+    }
+
+    @Test
+    @DisplayName("Should find the last change older than a date and delete the ones before it")
+    public void pruneTest() {
+        // scenery
+        Change old = persist(LocalDateTime.now().minusDays(40));
+        Change lastOld = persist(LocalDateTime.now().minusDays(35));
+        Change recent = persist(LocalDateTime.now());
+
+        // execution
+        Long lastPruned = repository.findLastIdBefore(LocalDateTime.now().minusDays(30));
+        int deleted = repository.deleteByIdLessThan(lastPruned);
+
+        // verification
+        assertThat(lastPruned).isEqualTo(lastOld.getId());
+        assertThat(deleted).isEqualTo(1);
+        assertThat(repository.findFirstId()).isEqualTo(lastOld.getId());
+        assertThat(repository.findById(recent.getId())).isPresent();
+        assertThat(old.getId()).isLessThan(lastOld.getId());
+    }
+
+    private Change persist(LocalDateTime occurredAt) {
+        return entityManager.persistFlushFind(Change.builder()
+                .type(Change.Type.BOOK)
+                .entityId(1L)
+                .operation(Change.Operation.UPDATED)
+                .occurredAt(occurredAt)
+                .build());
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,6 +30,9 @@ public class LoanRepositoryTest {
     @Autowired
     LoanRepository repository;
 
+    // isbn keys are unique, the loans of a test share its book
+    Book book;
+
     @Test
     @DisplayName("Should return true when loan exists in database")
     public void existsByBookAndNotReturnedTest() {
@@ -49,7 +53,7 @@ public class LoanRepositoryTest {
         Loan loan = createAndPersistLoanAndBook(LocalDate.now());
 
         // execution
-        Page<Loan> result = repository.findByBookIsbnOrCostumer("123", "Fulano", PageRequest.of(0, 10));
+        Page<Loan> result = repository.findByBookIsbnOrCostumer(9780134685991L, "Fulano", PageRequest.of(0, 10));
 
         // verification
         assertThat(result.getContent()).hasSize(1);
@@ -60,6 +64,49 @@ public class LoanRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Should find loan only by book's isbn")
+    public void findByBookIsbnTest() {
+        // scenery
+        Loan loan = createAndPersistLoanAndBook(LocalDate.now());
+
+        // execution
+        Page<Loan> result = repository.findByBookIsbn(9780134685991L, PageRequest.of(0, 10));
+
+        // verification
+        assertThat(result.getContent()).hasSize(1).contains(loan);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should find loan only by costumer")
+    public void findByCostumerTest() {
+        // scenery
+        Loan loan = createAndPersistLoanAndBook(LocalDate.now());
+
+        // execution
+        Page<Loan> result = repository.findByCostumer("Fulano", PageRequest.of(0, 10));
+
+        // verification
+        assertThat(result.getContent()).hasSize(1).contains(loan);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not repeat a loan matched by both isbn and costumer")
+    public void findByBookIsbnOrCostumerWithoutDuplicatesTest() {
+        // scenery
+        Loan loan = createAndPersistLoanAndBook(LocalDate.now());
+
+        // execution
+        Page<Loan> byIsbn = repository.findByBookIsbnOrCostumer(9780134685991L, "Ciclano", PageRequest.of(0, 10));
+        Page<Loan> byCostumer = repository.findByBookIsbnOrCostumer(9790000000001L, "Fulano", PageRequest.of(0, 10));
+
+        // verification
+        assertThat(byIsbn.getContent()).hasSize(1).contains(loan);
+        assertThat(byCostumer.getContent()).hasSize(1).contains(loan);
+    }
+
     @Test
     @DisplayName("Should get loans where loan date is less ir equal to three days ago and not returned")
     public void findByLoanDateLessThanAndNotReturnedTest() {
@@ -88,11 +135,95 @@ public class LoanRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Should get only the not returned loans whose next notice is due")
+    public void findDueForReminderTest() {
+        // scenery
+        Loan due = createAndPersistLoanAndBook(LocalDate.now().minusDays(5));
+        due.setNextNotifyAt(LocalDate.now());
+        Loan notYet = createAndPersistLoanAndBook(LocalDate.now().minusDays(5));
+        notYet.setNextNotifyAt(LocalDate.now().plusDays(2));
+        Loan returned = createAndPersistLoanAndBook(LocalDate.now().minusDays(5));
+        returned.setNextNotifyAt(LocalDate.now().minusDays(1));
+        returned.setReturned(true);
+        entityManager.flush();
+
+        // execution
+        List<Loan> result = repository.findDueForReminder(LocalDate.now());
+
+        // verification
+        assertThat( result ).hasSize(1).contains(due);
+    }
+
+    @Test
+    @DisplayName("Should return a loan only once, even when it is already marked returned in the persistence context")
+    public void markReturnedTest() {
+        // scenery
+        Loan loan = createAndPersistLoanAndBook(LocalDate.now());
+        entityManager.flush();
+        loan.setReturned(true);
+
+        // execution
+        int first = repository.markReturned(loan.getId());
+        int second = repository.markReturned(loan.getId());
+
+        // verification
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+    }
+
+    @Test
+    @DisplayName("Should record a late notice without undoing a return made after the loan was read")
+    public void markNotifiedReturnedMeanwhileTest() {
+        // scenery
+        Loan late = createAndPersistLoanAndBook(LocalDate.now().minusDays(5));
+        late.setNotificationLevel(0);
+        late.setNextNotifyAt(LocalDate.now());
+        Loan returned = createAndPersistLoanAndBook(LocalDate.now().minusDays(5));
+        returned.setNotificationLevel(0);
+        returned.setNextNotifyAt(LocalDate.now());
+        entityManager.flush();
+        entityManager.clear();
+        // returned while its mail was being sent
+        repository.markReturned(returned.getId());
+        LocalDateTime now = LocalDateTime.now();
+
+        // execution
+        int notified = repository.markNotified(late.getId(), 1, now, LocalDate.now().plusDays(2));
+        int skipped = repository.markNotified(returned.getId(), 1, now, LocalDate.now().plusDays(2));
+        entityManager.clear();
+
+        // verification
+        assertThat(notified).isEqualTo(1);
+        assertThat(skipped).isZero();
+        Loan lateFound = entityManager.find(Loan.class, late.getId());
+        assertThat(lateFound.getNotificationLevel()).isEqualTo(1);
+        assertThat(lateFound.getNextNotifyAt()).isEqualTo(LocalDate.now().plusDays(2));
+        Loan returnedFound = entityManager.find(Loan.class, returned.getId());
+        assertThat(returnedFound.getReturned()).isTrue();
+        assertThat(returnedFound.getNotificationLevel()).isZero();
+        assertThat(returnedFound.getLastNotifiedAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should create an index for the filter of each loan query")
+    public void indexesTest() {
+        // execution
+        List<Object> indexes = entityManager.getEntityManager()
+                .createNativeQuery("SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'LOAN'")
+                .getResultList();
+
+        // verification
+        assertThat(indexes).contains("idx_loan_customer", "idx_loan_book_returned", "idx_loan_next_notify_at",
+                "idx_loan_loan_date");
+    }
+
     private static Book createValidBook() {
         return Book.builder()
                 .author("Arthur")
                 .title("As aventuras")
-                .isbn("123")
+                .isbn("9780134685991")
+                .isbnKey(9780134685991L)
                 .build();
     }
 
@@ -105,8 +236,9 @@ public class LoanRepositoryTest {
     }
 
     private Loan createAndPersistLoanAndBook(LocalDate loanDate) {
-        Book book = createValidBook();
-        entityManager.persist(book);
+        if (book == null) {
+            book = entityManager.persist(createValidBook());
+        }
 
         Loan loan = createLoan(book);
         loan.setLoanDate(loanDate);
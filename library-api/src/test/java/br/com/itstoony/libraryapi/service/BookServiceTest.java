@@ -3,27 +3,42 @@ package br.com.itstoony.libraryapi.service;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.exception.BusinessException;
 import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.event.BookCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.BookDeletedEvent;
+import br.com.itstoony.libraryapi.service.event.BookUpdatedEvent;
 import br.com.itstoony.libraryapi.service.imp.BookServiceImpl;
+import br.com.itstoony.libraryapi.service.support.BookAvailabilityIndex;
+import br.com.itstoony.libraryapi.service.support.IsbnBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -35,10 +50,22 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    ApplicationEventPublisher eventPublisher;
+
+    IsbnBloomFilter isbnFilter;
+
+    LoanRepository loanRepository;
+
+    BookAvailabilityIndex availabilityIndex;
 
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl( repository );
+        this.eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        this.isbnFilter = new IsbnBloomFilter( repository, new SimpleMeterRegistry(), 1000, 0.01 );
+        this.loanRepository = Mockito.mock(LoanRepository.class);
+        this.availabilityIndex = new BookAvailabilityIndex( repository, loanRepository, new SimpleMeterRegistry() );
+        this.service = new BookServiceImpl( repository, new SimpleMeterRegistry(), eventPublisher, isbnFilter,
+                availabilityIndex );
     }
 
     @Test
@@ -46,10 +73,11 @@ public class BookServiceTest {
     public void saveBookTest() {
         // scenery
         Book book = createValidBook();
-        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
-        when(repository.save(book)).thenReturn(
+        when(repository.existsByIsbnKey(Mockito.anyLong())).thenReturn(false);
+        when(repository.saveAndFlush(book)).thenReturn(
                 Book.builder().id(1L)
-                .isbn("123")
+                .isbn("9780134685991")
+                .isbnKey(9780134685991L)
                 .author("Fulano")
                 .title("As aventuras")
                 .build());
@@ -59,19 +87,39 @@ public class BookServiceTest {
 
         // verification
         assertThat(savedBook.getId()).isNotNull();
-        assertThat(savedBook.getIsbn()).isEqualTo("123");
+        assertThat(savedBook.getIsbn()).isEqualTo("9780134685991");
         assertThat(savedBook.getTitle()).isEqualTo("As aventuras");
         assertThat(savedBook.getAuthor()).isEqualTo("Fulano");
+        verify(eventPublisher).publishEvent(any(BookCreatedEvent.class));
+        assertThat(book.getIsbn()).isEqualTo("9780134685991");
+        assertThat(book.getIsbnKey()).isEqualTo(9780134685991L);
 
     }
 
+    @Test
+    @DisplayName("Should not save a book with an invalid isbn")
+    public void shouldNotSaveABookWithInvalidIsbn() {
+        // scenery
+        Book book = createValidBook();
+        book.setIsbn("978-0-13-468599-2");
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.save(book));
+
+        // verification
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Invalid isbn");
+        verifyNoInteractions( repository );
+    }
+
     @Test
     @DisplayName("Deve lançar exceção caso tente cadastrar um livro com ISBN duplicado")
     public void shouldNotSaveABookWithDuplicatedISBN() {
         // scenery
         var book = createValidBook();
         String mensagemErro = "Isbn já cadastrado";
-        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+        when(repository.existsByIsbnKey(Mockito.anyLong())).thenReturn(true);
 
         // execution
         var exception = catchThrowable(() -> service.save(book));
@@ -79,8 +127,43 @@ public class BookServiceTest {
                 .isInstanceOf(BusinessException.class)
                 .hasMessage(mensagemErro);
 
-        verify(repository, Mockito.never()).save(book);
+        verify(repository, Mockito.never()).saveAndFlush(book);
+
+    }
+
+    @Test
+    @DisplayName("Should answer a duplicated isbn saved concurrently, caught by the unique index, as a duplicated isbn")
+    public void shouldNotSaveABookWithConcurrentlyDuplicatedISBN() {
+        // scenery
+        var book = createValidBook();
+        when(repository.existsByIsbnKey(Mockito.anyLong())).thenReturn(false);
+        when(repository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation", new SQLException(),
+                        "PUBLIC.IDX_BOOK_ISBN_KEY_INDEX_1 ON PUBLIC.BOOK(ISBN_KEY NULLS FIRST)")));
+
+        // execution
+        var exception = catchThrowable(() -> service.save(book));
+
+        // verification
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Isbn já cadastrado");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should not hide any other integrity violation when saving a book")
+    public void saveBookOtherIntegrityViolationTest() {
+        // scenery
+        var book = createValidBook();
+        var violation = new DataIntegrityViolationException("could not execute statement");
+        when(repository.saveAndFlush(book)).thenThrow(violation);
 
+        // execution
+        var exception = catchThrowable(() -> service.save(book));
+
+        // verification
+        assertThat(exception).isSameAs(violation);
     }
 
     @Test
@@ -131,6 +214,7 @@ public class BookServiceTest {
 
         // verification
         verify(repository, times(1)).delete(book);
+        verify(eventPublisher).publishEvent(any(BookDeletedEvent.class));
 
     }
 
@@ -158,13 +242,14 @@ public class BookServiceTest {
         Book updatedBook = createValidBook();
         updatedBook.setId(id);
 
-        when(repository.save(updatingBook)).thenReturn(updatedBook);
+        when(repository.saveAndFlush(updatingBook)).thenReturn(updatedBook);
 
         // execution
         Book book = service.update(updatingBook);
 
         // verification
-        verify(repository, times(1)).save(updatingBook);
+        verify(repository, times(1)).saveAndFlush(updatingBook);
+        verify(eventPublisher).publishEvent(any(BookUpdatedEvent.class));
         assertThat(book.getId()).isEqualTo(id);
         assertThat(book.getIsbn()).isEqualTo(createValidBook().getIsbn());
         assertThat(book.getAuthor()).isEqualTo(createValidBook().getAuthor());
@@ -180,7 +265,7 @@ public class BookServiceTest {
         String erro = "Can't update an unsaved book";
 
         // execution
-        verify(repository, Mockito.never()).save(book);
+        verify(repository, Mockito.never()).saveAndFlush(book);
         Throwable ex = catchThrowable( () -> service.update(book));
         assertThat(ex).isInstanceOf(IllegalArgumentException.class);
         assertThat(ex).hasMessage(erro);
@@ -210,30 +295,152 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Should complete the asynchronous search with the page of the filter")
+    public void findAsyncTest() {
+        // scenery
+        Book book = createValidBook();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Book> page = new PageImpl<>(Collections.singletonList(book), pageRequest, 1);
+
+        when(repository.findAll(any(Example.class), any(PageRequest.class)))
+                .thenReturn(page);
+
+        // execution
+        CompletableFuture<Page<Book>> result = service.findAsync(book, null, pageRequest);
+
+        // verification
+        assertThat(result).isCompletedWithValue(page);
+        verify( repository, never() ).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should page the available books from the availability index")
+    public void findAvailableBooksTest() {
+        // scenery
+        when( repository.findIdsAfter(eq(0L), any(Pageable.class)) ).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when( loanRepository.findLoanedBookIds() ).thenReturn(List.of(2L));
+        availabilityIndex.afterSingletonsInstantiated();
+
+        Book first = Book.builder().id(1L).build();
+        Book second = Book.builder().id(3L).build();
+        when( repository.findAllById(List.of(1L, 3L)) ).thenReturn(List.of(second, first));
+
+        // execution
+        Page<Book> result = service.find(new Book(), true, PageRequest.of(0, 2));
+
+        // verification
+        assertThat(result.getContent()).containsExactly(first, second);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        verify( repository, never() ).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should filter the books on loan in the query when filtering by other properties")
+    public void findLoanedBooksByTitleTest() {
+        // scenery
+        when( loanRepository.findLoanedBookIds() ).thenReturn(List.of(2L));
+        availabilityIndex.afterSingletonsInstantiated();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when( repository.findAll(any(Specification.class), eq(pageRequest)) ).thenReturn(Page.empty(pageRequest));
+
+        // execution
+        service.find(Book.builder().title("aventuras").build(), false, pageRequest);
+
+        // verification
+        verify( repository ).findAll(any(Specification.class), eq(pageRequest));
+        verify( repository, never() ).findAllById(any());
+    }
+
     @Test
     @DisplayName("Should find a book by it's isbn")
     public void findBookByIsbn() {
         // scenery
-        String isbn = "123";
+        String isbn = "0-13-468599-7";
 
-        Book book = createValidBook();
-        book.setId(1L);
+        Book book = Book.builder().id(1L).isbn("9780134685991").isbnKey(9780134685991L).build();
 
-        when( repository.findByIsbn(isbn) ).thenReturn(Optional.of(book));
+        when( repository.findByIsbnKey(9780134685991L) ).thenReturn(Optional.of(book));
 
         // execution
         Optional<Book> foundBook = service.getBookByIsbn(isbn);
 
         // verification
-        verify( repository, times(1) ).findByIsbn(isbn);
+        verify( repository, times(1) ).findByIsbnKey(9780134685991L);
         assertThat(foundBook.isPresent()).isTrue();
-        assertThat(foundBook.get().getIsbn()).isEqualTo(isbn);
+        assertThat(foundBook.get().getIsbn()).isEqualTo("9780134685991");
+    }
+
+
+    @Test
+    @DisplayName("Should not query an isbn the isbn filter doesn't hold")
+    public void findUnknownIsbnWithoutQueryTest() {
+        // scenery
+        isbnFilter.rebuild();
+
+        // execution
+        Optional<Book> foundBook = service.getBookByIsbn("9788535902778");
+        List<Book> foundBooks = service.getBooksByIsbns(List.of("9788535902778", "9790000000001", "123"));
+
+        // verification
+        assertThat(foundBook).isEmpty();
+        assertThat(foundBooks).isEmpty();
+        verify( repository, never() ).findByIsbnKey(anyLong());
+        verify( repository, never() ).findByIsbnKeyIn(any());
     }
 
+    @Test
+    @DisplayName("Should save a book with an isbn the isbn filter doesn't hold without checking it and then find it")
+    public void saveUnknownIsbnTest() {
+        // scenery
+        isbnFilter.rebuild();
+        Book book = createValidBook();
+        Book saved = Book.builder().id(1L).isbn("9780134685991").isbnKey(9780134685991L).build();
+        when( repository.saveAndFlush(book) ).thenReturn(saved);
+        when( repository.findByIsbnKey(9780134685991L) ).thenReturn(Optional.of(saved));
+
+        // execution
+        service.save(book);
+        Optional<Book> foundBook = service.getBookByIsbn("9780134685991");
+
+        // verification
+        verify( repository, never() ).existsByIsbnKey(anyLong());
+        assertThat(foundBook).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should get several books by id with a single query")
+    public void getByIdsTest() {
+        // scenery
+        Book book = createValidBook();
+        book.setId(1L);
+        List<Long> ids = List.of(1L, 2L);
+
+        when( repository.findAllById(ids) ).thenReturn(List.of(book));
+
+        // execution
+        List<Book> result = service.getByIds(ids);
+
+        // verification
+        assertThat(result).containsExactly(book);
+        verify( repository, times(1) ).findAllById(ids);
+        verify( repository, never() ).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should not query when no isbn is requested")
+    public void getBooksByEmptyIsbnsTest() {
+        // execution
+        List<Book> result = service.getBooksByIsbns(List.of());
+
+        // verification
+        assertThat(result).isEmpty();
+        verifyNoInteractions( repository );
+    }
 
     private static Book createValidBook() {
         return Book.builder()
-                .isbn("123")
+                .isbn("978-0-13-468599-1")
                 .author("Fulano")
                 .title("As aventuras")
                 .build();
@@ -0,0 +1,75 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.service.event.BookDeletedEvent;
+import br.com.itstoony.libraryapi.service.event.BookUpdatedEvent;
+import br.com.itstoony.libraryapi.service.imp.BookSuggestionServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookSuggestionServiceTest {
+
+    BookSuggestionServiceImpl service;
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new BookSuggestionServiceImpl(repository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should suggest the books loaded at startup")
+    public void loadAndSuggestTest() {
+        // scenery
+        Book book = Book.builder().id(1L).isbn("123").title("As aventuras").author("Fulano").build();
+        when(repository.findByIdGreaterThanOrderById(eq(0L), any(Pageable.class))).thenReturn(List.of(book));
+
+        // execution
+        service.afterSingletonsInstantiated();
+        List<Book> suggestions = service.suggest("fula", 10);
+
+        // verification
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).getId()).isEqualTo(1L);
+        assertThat(suggestions.get(0).getTitle()).isEqualTo("As aventuras");
+    }
+
+    @Test
+    @DisplayName("Should follow the book events")
+    public void bookEventsTest() {
+        // scenery
+        Book book = Book.builder().id(1L).isbn("123").title("As aventuras").author("Fulano").build();
+        when(repository.findByIdGreaterThanOrderById(eq(0L), any(Pageable.class))).thenReturn(List.of(book));
+        service.afterSingletonsInstantiated();
+
+        // execution
+        book.setTitle("Outras histórias");
+        service.onBookEvent(BookUpdatedEvent.of(book));
+
+        // verification
+        assertThat(service.suggest("aventuras", 10)).isEmpty();
+        assertThat(service.suggest("outras", 10)).extracting(Book::getTitle).containsExactly("Outras histórias");
+
+        service.onBookEvent(BookDeletedEvent.of(book));
+        assertThat(service.suggest("outras", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Change;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.ChangeRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.ChangeFeedService.ChangePage;
+import br.com.itstoony.libraryapi.service.imp.ChangeFeedServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ChangeFeedServiceTest {
+
+    ChangeFeedService service;
+
+    @MockBean
+    ChangeRepository repository;
+
+    BookRepository bookRepository;
+
+    LoanRepository loanRepository;
+
+    @BeforeEach
+    public void setUp() {
+        this.bookRepository = Mockito.mock(BookRepository.class);
+        this.loanRepository = Mockito.mock(LoanRepository.class);
+        this.service = new ChangeFeedServiceImpl(repository, bookRepository, loanRepository, 5000, 30);
+    }
+
+    @Test
+    @DisplayName("Should return the changes with the current state of the changed books")
+    public void getChangesTest() {
+        // scenery
+        LocalDateTime old = LocalDateTime.now().minusMinutes(1);
+        Book book = Book.builder().id(7L).title("As aventuras").build();
+        when(repository.findByIdGreaterThanOrderById(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                change(11L, 7L, Change.Operation.CREATED, old),
+                change(12L, 8L, Change.Operation.DELETED, old)));
+        when(bookRepository.findAllById(List.of(7L))).thenReturn(List.of(book));
+
+        // execution
+        ChangePage page = service.getChanges(10L, 100);
+
+        // verification
+        assertThat(page.changes()).extracting(Change::getId).containsExactly(11L, 12L);
+        assertThat(page.books()).containsEntry(7L, book).doesNotContainKey(8L);
+        assertThat(page.next()).isEqualTo(12L);
+        assertThat(page.more()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should stop before a recent gap in the sequence and skip an old one")
+    public void gapTest() {
+        // scenery
+        LocalDateTime old = LocalDateTime.now().minusMinutes(1);
+        when(repository.findByIdGreaterThanOrderById(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                change(11L, 1L, Change.Operation.UPDATED, old),
+                change(13L, 1L, Change.Operation.UPDATED, old),
+                change(15L, 1L, Change.Operation.UPDATED, LocalDateTime.now())));
+
+        // execution
+        ChangePage page = service.getChanges(10L, 3);
+
+        // verification
+        assertThat(page.changes()).extracting(Change::getId).containsExactly(11L, 13L);
+        assertThat(page.next()).isEqualTo(13L);
+        assertThat(page.more()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should tell when the changes after a sequence were pruned")
+    public void isRetainedTest() {
+        // scenery
+        when(repository.findFirstId()).thenReturn(50L);
+
+        // execution
+        boolean justPruned = service.isRetained(49L);
+        boolean lost = service.isRetained(10L);
+
+        // verification
+        assertThat(justPruned).isTrue();
+        assertThat(lost).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep the last pruned change when pruning")
+    public void pruneTest() {
+        // scenery
+        when(repository.findLastIdBefore(any(LocalDateTime.class))).thenReturn(40L);
+
+        // execution
+        ((ChangeFeedServiceImpl) service).prune();
+
+        // verification
+        Mockito.verify(repository).deleteByIdLessThan(40L);
+    }
+
+    private static Change change(Long id, Long bookId, Change.Operation operation, LocalDateTime occurredAt) {
+        return Change.builder()
+                .id(id)
+                .type(Change.Type.BOOK)
+                .entityId(bookId)
+                .operation(operation)
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
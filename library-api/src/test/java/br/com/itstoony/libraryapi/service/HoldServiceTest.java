@@ -0,0 +1,230 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import br.com.itstoony.libraryapi.exception.BusinessException;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.HoldRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.imp.HoldServiceImpl;
+import br.com.itstoony.libraryapi.service.support.BookAvailabilityIndex;
+import br.com.itstoony.libraryapi.service.support.HoldQueues;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class HoldServiceTest {
+
+    HoldService service;
+
+    @MockBean
+    HoldRepository repository;
+
+    LoanRepository loanRepository;
+
+    EmailService emailService;
+
+    HoldQueues holdQueues;
+
+    // the holds saved through the mocked repository
+    Map<Long, Hold> table;
+
+    Book book;
+
+    @BeforeEach
+    public void setUp() {
+        this.loanRepository = Mockito.mock(LoanRepository.class);
+        this.emailService = Mockito.mock(EmailService.class);
+        this.holdQueues = new HoldQueues(repository, new SimpleMeterRegistry());
+        BookAvailabilityIndex availabilityIndex = new BookAvailabilityIndex(
+                Mockito.mock(BookRepository.class), loanRepository, new SimpleMeterRegistry());
+        this.service = new HoldServiceImpl(repository, holdQueues, loanRepository, availabilityIndex, emailService,
+                3, "Your book is back", "Hello {customer}, {title} is yours until {until}");
+
+        this.table = new HashMap<>();
+        AtomicLong ids = new AtomicLong();
+        when(repository.save(any(Hold.class))).thenAnswer(invocation -> {
+            Hold hold = invocation.getArgument(0);
+            if (hold.getId() == null) {
+                hold.setId(ids.incrementAndGet());
+            }
+            table.put(hold.getId(), hold);
+            return hold;
+        });
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+
+        this.book = Book.builder().id(1L).isbn("9780134685991").title("As aventuras").author("Fulano").build();
+        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should queue the holds of a loaned book in order")
+    public void placeHoldTest() {
+        // execution
+        Hold first = service.place(createHold("Fulano"));
+        Hold second = service.place(createHold("Ciclano"));
+
+        // verification
+        assertThat(service.position(first)).isEqualTo(1);
+        assertThat(service.position(second)).isEqualTo(2);
+        assertThat(first.getCreatedAt()).isNotNull();
+        assertThat(first.getPromotedAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not hold a book that is not loaned")
+    public void placeHoldOnAvailableBookTest() {
+        // scenery
+        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(false);
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.place(createHold("Fulano")));
+
+        // verification
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book is not loaned, borrow it instead");
+        verify(repository, never()).save(any(Hold.class));
+    }
+
+    @Test
+    @DisplayName("Should not hold the same book twice for a customer")
+    public void placeHoldTwiceTest() {
+        // scenery
+        service.place(createHold("Fulano"));
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.place(createHold("Fulano")));
+
+        // verification
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Customer already holds this book");
+    }
+
+    @Test
+    @DisplayName("Should promote and notify only the first holder once the book is returned")
+    public void promoteNextTest() {
+        // scenery
+        Hold first = service.place(createHold("Fulano"));
+        service.place(createHold("Ciclano"));
+
+        // execution
+        Optional<Hold> promoted = service.promoteNext(book.getId());
+        Optional<Hold> again = service.promoteNext(book.getId());
+
+        // verification
+        assertThat(promoted).contains(first);
+        assertThat(first.getPromotedAt()).isNotNull();
+        assertThat(again).isEmpty();
+        String until = LocalDate.now().plusDays(3).toString();
+        verify(emailService, times(1)).sendPersonalizedMails("Your book is back",
+                Map.of("fulano@email.com", "Hello Fulano, As aventuras is yours until " + until));
+    }
+
+    @Test
+    @DisplayName("Should keep the hold promoted when the mail queue refuses its notice")
+    public void promoteNextMailRejectedTest() {
+        // scenery
+        Hold first = service.place(createHold("Fulano"));
+        when(emailService.sendPersonalizedMails(eq("Your book is back"), anyMap()))
+                .thenThrow(new TaskRejectedException("Executor queue full"));
+
+        // execution
+        Optional<Hold> promoted = service.promoteNext(book.getId());
+
+        // verification
+        assertThat(promoted).contains(first);
+        assertThat(first.getPromotedAt()).isNotNull();
+        assertThat(service.position(first)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should lend a book with holds only to its first holder, consuming the hold")
+    public void claimTest() {
+        // scenery
+        Hold first = service.place(createHold("Fulano"));
+        Hold second = service.place(createHold("Ciclano"));
+        service.promoteNext(book.getId());
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.claim(createLoan("Ciclano")));
+        service.claim(createLoan("Fulano"));
+
+        // verification
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book reserved for another customer");
+        verify(repository).deleteById(first.getId());
+        assertThat(service.position(first)).isZero();
+        assertThat(service.position(second)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should promote the next holder when a ready hold is cancelled")
+    public void cancelPromotedHoldTest() {
+        // scenery
+        Hold first = service.place(createHold("Fulano"));
+        Hold second = service.place(createHold("Ciclano"));
+        service.promoteNext(book.getId());
+
+        // execution
+        service.cancel(first);
+
+        // verification
+        verify(repository).delete(first);
+        assertThat(second.getPromotedAt()).isNotNull();
+        assertThat(service.position(second)).isEqualTo(1);
+        verify(emailService, times(2)).sendPersonalizedMails(eq("Your book is back"), anyMap());
+    }
+
+    @Test
+    @DisplayName("Should give the book to the next holder when the pickup time is over")
+    public void expirePickupsTest() {
+        // scenery
+        Hold first = service.place(createHold("Fulano"));
+        Hold second = service.place(createHold("Ciclano"));
+        service.promoteNext(book.getId());
+        first.setPromotedAt(LocalDateTime.now().minusDays(4));
+        when(repository.findByPromotedAtBefore(any(LocalDateTime.class))).thenReturn(List.of(first));
+
+        // execution
+        ((HoldServiceImpl) service).expirePickups();
+
+        // verification
+        verify(repository).delete(first);
+        assertThat(second.getPromotedAt()).isNotNull();
+    }
+
+    private Hold createHold(String customer) {
+        return Hold.builder()
+                .customer(customer)
+                .customerEmail(customer.toLowerCase() + "@email.com")
+                .book(book)
+                .build();
+    }
+
+    private Loan createLoan(String customer) {
+        return Loan.builder().customer(customer).book(book).loanDate(LocalDate.now()).build();
+    }
+}
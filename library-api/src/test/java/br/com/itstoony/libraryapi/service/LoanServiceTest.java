@@ -4,14 +4,22 @@ import br.com.itstoony.libraryapi.api.dto.LoanFilterDTO;
 import br.com.itstoony.libraryapi.api.model.entity.Book;
 import br.com.itstoony.libraryapi.api.model.entity.Loan;
 import br.com.itstoony.libraryapi.exception.BusinessException;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
 import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.event.LoanCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.LoanReturnedEvent;
 import br.com.itstoony.libraryapi.service.imp.LoanServiceImpl;
+import br.com.itstoony.libraryapi.service.support.BookAvailabilityIndex;
+import br.com.itstoony.libraryapi.service.support.ReminderSchedule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -20,6 +28,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -37,10 +46,20 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    ApplicationEventPublisher eventPublisher;
+
+    BookAvailabilityIndex availabilityIndex;
+
+    HoldService holdService;
 
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        this.availabilityIndex = new BookAvailabilityIndex(
+                Mockito.mock(BookRepository.class), repository, new SimpleMeterRegistry());
+        this.holdService = Mockito.mock(HoldService.class);
+        this.service = new LoanServiceImpl(repository, eventPublisher, new ReminderSchedule(4, new int[]{ 1, 3 }, 7),
+                availabilityIndex, holdService);
     }
 
     @Test
@@ -69,6 +88,7 @@ public class LoanServiceTest {
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        verify( eventPublisher ).publishEvent(any(LoanCreatedEvent.class));
 
     }
 
@@ -87,7 +107,102 @@ public class LoanServiceTest {
                         .isInstanceOf(BusinessException.class)
                         .hasMessage("Book already loaned");
         verify( repository, never() ).save(loan);
+        verifyNoInteractions( eventPublisher );
+
+    }
+
+    @Test
+    @DisplayName("Should refuse a second loan of a book from the availability index, without a query")
+    public void saveLoanedBookFromIndexTest() {
+        // scenery
+        availabilityIndex.afterSingletonsInstantiated();
+        Book book = createValidBook();
+        book.setId(1L);
+        when( repository.save(any(Loan.class)) ).thenAnswer(invocation -> invocation.getArgument(0));
+        service.save(createLoan(book));
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.save(createLoan(book)));
+
+        // verification
+        assertThat( exception )
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already loaned");
+        assertThat( availabilityIndex.isLoaned(1L) ).isTrue();
+        verify( repository, times(1) ).save(any(Loan.class));
+        // only the first save reached the database check
+        verify( repository, times(1) ).existsByBookAndNotReturned(any());
+    }
+
+    @Test
+    @DisplayName("Should still refuse a loan the database knows of when the availability index misses it")
+    public void saveLoanedBookFromDatabaseTest() {
+        // scenery
+        availabilityIndex.afterSingletonsInstantiated();
+        Book book = createValidBook();
+        book.setId(1L);
+        BDDMockito.given( repository.existsByBookAndNotReturned(book) ).willReturn( true );
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.save(createLoan(book)));
+
+        // verification
+        assertThat( exception ).isInstanceOf(BusinessException.class);
+        verify( repository, never() ).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Should not free a book on loan again when an old loan of it is returned a second time")
+    public void repeatedReturnTest() {
+        // scenery: the returns reach the availability index, as they do once committed
+        ApplicationEventPublisher publisher = event -> {
+            if (event instanceof LoanReturnedEvent returned) {
+                availabilityIndex.onLoanReturned(returned);
+            }
+        };
+        LoanService service = new LoanServiceImpl(repository, publisher, new ReminderSchedule(4, new int[]{ 1, 3 }, 7),
+                availabilityIndex, holdService);
+        availabilityIndex.afterSingletonsInstantiated();
+        Book book = createValidBook();
+        book.setId(1L);
+        when( repository.save(any(Loan.class)) ).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Loan old = service.save(createLoan(book));
+        old.setId(1L);
+        old.setReturned(true);
+        when( repository.markReturned(1L) ).thenReturn(1);
+        service.update(old);
+        service.save(createLoan(book));
+
+        // execution
+        when( repository.markReturned(1L) ).thenReturn(0);
+        service.update(old);
+        Throwable exception = catchThrowable(() -> service.save(createLoan(book)));
+
+        // verification
+        assertThat( exception ).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+        assertThat( availabilityIndex.isLoaned(1L) ).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not lend a book reserved for another customer")
+    public void saveReservedBookTest() {
+        // scenery
+        Book book = createValidBook();
+        book.setId(1L);
+        Loan loan = createLoan(book);
+
+        Mockito.doThrow(new BusinessException("Book reserved for another customer")).when(holdService).claim(loan);
 
+        // execution
+        Throwable exception = catchThrowable(() -> service.save(loan));
+
+        // verification
+        assertThat( exception )
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book reserved for another customer");
+        verify( repository, never() ).save(any(Loan.class));
+        verify( eventPublisher, never() ).publishEvent(any(LoanCreatedEvent.class));
     }
 
     @Test
@@ -123,6 +238,7 @@ public class LoanServiceTest {
         loan.setId(id);
         loan.setReturned(true);
 
+        when( repository.markReturned(id) ).thenReturn(1);
         when( repository.save(loan) ).thenReturn(loan);
         // execution
         Loan updatedLoan = service.update(loan);
@@ -131,6 +247,80 @@ public class LoanServiceTest {
         assertThat(updatedLoan.getReturned()).isTrue();
 
         verify( repository ).save(loan);
+        verify( eventPublisher ).publishEvent(any(LoanReturnedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should not publish the return of a loan that was already returned")
+    public void updateReturnedLoanTest() {
+        // scenery
+        Loan loan = createLoan(createValidBook());
+        loan.setId(1L);
+        loan.setReturned(true);
+
+        when( repository.markReturned(1L) ).thenReturn(0);
+        when( repository.save(loan) ).thenReturn(loan);
+
+        // execution
+        service.update(loan);
+
+        // verification
+        verify( repository ).save(loan);
+        verify( eventPublisher, never() ).publishEvent(any(LoanReturnedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should schedule the first late notice when saving a loan and cancel it when the book is returned")
+    public void scheduleFirstNoticeTest() {
+        // scenery
+        Loan loan = createLoan(createValidBook());
+        loan.setLoanDate(LocalDate.of(2023, 1, 10));
+        when( repository.save(loan) ).thenReturn(loan);
+
+        // execution
+        service.save(loan);
+        LocalDate firstNotice = loan.getNextNotifyAt();
+        loan.setReturned(true);
+        service.update(loan);
+
+        // verification
+        assertThat(firstNotice).isEqualTo(LocalDate.of(2023, 1, 14));
+        assertThat(loan.getNotificationLevel()).isEqualTo(0);
+        assertThat(loan.getNextNotifyAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should record the notice and schedule the next one after notifying a late loan")
+    public void markNotifiedTest() {
+        // scenery
+        Loan loan = createLoan(createValidBook());
+        loan.setId(1L);
+        loan.setLoanDate(LocalDate.now().minusDays(4));
+        loan.setNotificationLevel(0);
+        loan.setNextNotifyAt(LocalDate.now());
+
+        // execution
+        service.markNotified(List.of(loan));
+
+        // verification
+        verify( repository ).markNotified(eq(1L), eq(1), any(LocalDateTime.class), eq(LocalDate.now().plusDays(2)));
+        verify( repository, never() ).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should not schedule a notice in the past when the job missed some days")
+    public void markNotifiedAfterMissedRunsTest() {
+        // scenery
+        Loan loan = createLoan(createValidBook());
+        loan.setId(1L);
+        loan.setLoanDate(LocalDate.now().minusDays(30));
+        loan.setNotificationLevel(0);
+
+        // execution
+        service.markNotified(List.of(loan));
+
+        // verification
+        verify( repository ).markNotified(eq(1L), eq(1), any(LocalDateTime.class), eq(LocalDate.now().plusDays(1)));
     }
 
     @Test
@@ -148,7 +338,7 @@ public class LoanServiceTest {
         Page<Loan> page = new PageImpl<>(list, pageRequest, 1);
 
         when( repository.findByBookIsbnOrCostumer(
-                any(String.class),
+                any(Long.class),
                 any(String.class),
                 any(PageRequest.class)) )
                 .thenReturn(page);
@@ -164,10 +354,79 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Should filter loans only by isbn when costumer is not informed")
+    public void findLoanByIsbnOnlyTest() {
+        // scenery
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().isbn("978-85-359-0277-8").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Loan> page = new PageImpl<>(Collections.singletonList(createLoan(createValidBook())), pageRequest, 1);
+
+        when( repository.findByBookIsbn(9788535902778L, pageRequest) ).thenReturn(page);
+
+        // execution
+        Page<Loan> result = service.find( loanFilterDTO, pageRequest );
+
+        // verification
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+        verify( repository, never() ).findByBookIsbnOrCostumer(any(), any(), any());
+        verify( repository, never() ).findByCostumer(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should filter loans only by costumer when isbn is not informed")
+    public void findLoanByCostumerOnlyTest() {
+        // scenery
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().costumer("Fulano").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Loan> page = new PageImpl<>(Collections.singletonList(createLoan(createValidBook())), pageRequest, 1);
+
+        when( repository.findByCostumer("Fulano", pageRequest) ).thenReturn(page);
+
+        // execution
+        Page<Loan> result = service.find( loanFilterDTO, pageRequest );
+
+        // verification
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+        verify( repository, never() ).findByBookIsbnOrCostumer(any(), any(), any());
+        verify( repository, never() ).findByBookIsbn(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should filter loans only by costumer when the isbn is not valid")
+    public void findLoanByInvalidIsbnTest() {
+        // scenery
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().isbn("321").costumer("Fulano").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when( repository.findByCostumer("Fulano", pageRequest) ).thenReturn(Page.empty(pageRequest));
+
+        // execution
+        service.find( loanFilterDTO, pageRequest );
+
+        // verification
+        verify( repository ).findByCostumer("Fulano", pageRequest);
+        verify( repository, never() ).findByBookIsbnOrCostumer(any(), any(), any());
+        verify( repository, never() ).findByBookIsbn(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should return an empty page without querying when no filter is informed")
+    public void findLoanWithoutFiltersTest() {
+        // scenery
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        // execution
+        Page<Loan> result = service.find( new LoanFilterDTO(), pageRequest );
+
+        // verification
+        Assertions.assertThat(result.getContent()).isEmpty();
+        verifyNoInteractions( repository );
+    }
+
     private static LoanFilterDTO createLoanFilterDTO() {
         return LoanFilterDTO.builder()
                 .costumer("Fulano")
-                .isbn("321")
+                .isbn("8535902775")
                 .build();
     }
 
@@ -175,7 +434,8 @@ public class LoanServiceTest {
         return Book.builder()
                 .author("Arthur")
                 .title("As aventuras")
-                .isbn("123")
+                .isbn("9780134685991")
+                .isbnKey(9780134685991L)
                 .build();
     }
 
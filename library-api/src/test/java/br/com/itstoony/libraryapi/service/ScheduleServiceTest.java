@@ -0,0 +1,130 @@
+package br.com.itstoony.libraryapi.service;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    ScheduleService service;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ScheduleService(loanService, emailService, "Late",
+                "Hello {customer}, {count} late:\n{books}", "- {title} ({loanDate})");
+    }
+
+    @Test
+    @DisplayName("Should send a single mail per customer listing all of the late books")
+    @SuppressWarnings("unchecked")
+    public void groupLateLoansByCustomerTest() {
+        // scenery
+        LocalDate date = LocalDate.of(2023, 1, 10);
+        BDDMockito.given(loanService.getLoansDueForReminder()).willReturn(List.of(
+                loan(1L, "Fulano", "fulano@email.com", "Book A", date),
+                loan(2L, "Ciclano", "ciclano@email.com", "Book B", date),
+                loan(3L, "Fulano", "Fulano@Email.com ", "Book C", date)));
+        BDDMockito.given(emailService.sendPersonalizedMails(anyString(), anyMap()))
+                .willReturn(CompletableFuture.completedFuture(Set.of("fulano@email.com", "ciclano@email.com")));
+
+        // execution
+        service.sendMailToLateLoans();
+
+        // verification
+        ArgumentCaptor<Map<String, String>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(emailService, times(1)).sendPersonalizedMails(Mockito.eq("Late"), captor.capture());
+
+        Map<String, String> textByEmail = captor.getValue();
+        assertThat(textByEmail).containsOnlyKeys("fulano@email.com", "ciclano@email.com");
+        assertThat(textByEmail.get("fulano@email.com"))
+                .isEqualTo("Hello Fulano, 2 late:\n- Book A (2023-01-10)\n- Book C (2023-01-10)");
+        assertThat(textByEmail.get("ciclano@email.com")).isEqualTo("Hello Ciclano, 1 late:\n- Book B (2023-01-10)");
+        verify(loanService).markNotified(Mockito.argThat(loans -> loans.size() == 3));
+    }
+
+    @Test
+    @DisplayName("Should neither send mails nor record a notice for the due loans without email")
+    public void dueLoansWithoutEmailTest() {
+        // scenery
+        List<Loan> due = List.of(loan(1L, "Fulano", null, "Book A", LocalDate.now()));
+        BDDMockito.given(loanService.getLoansDueForReminder()).willReturn(due);
+
+        // execution
+        service.sendMailToLateLoans();
+
+        // verification
+        verify(emailService, never()).sendPersonalizedMails(anyString(), anyMap());
+        verify(loanService, never()).markNotified(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Should record the notice only of the loans whose mail was sent")
+    public void failedMailTest() {
+        // scenery
+        LocalDate date = LocalDate.of(2023, 1, 10);
+        Loan sent = loan(2L, "Ciclano", "ciclano@email.com", "Book B", date);
+        BDDMockito.given(loanService.getLoansDueForReminder()).willReturn(List.of(
+                loan(1L, "Fulano", "fulano@email.com", "Book A", date), sent));
+        BDDMockito.given(emailService.sendPersonalizedMails(anyString(), anyMap()))
+                .willReturn(CompletableFuture.completedFuture(Set.of("ciclano@email.com")));
+
+        // execution
+        service.sendMailToLateLoans();
+
+        // verification
+        verify(loanService).markNotified(List.of(sent));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when no loan is due for a notice")
+    public void noDueLoansTest() {
+        // scenery
+        BDDMockito.given(loanService.getLoansDueForReminder()).willReturn(List.of());
+
+        // execution
+        service.sendMailToLateLoans();
+
+        // verification
+        verifyNoInteractions(emailService);
+        verify(loanService, never()).markNotified(Mockito.anyList());
+    }
+
+    private static Loan loan(Long id, String customer, String email, String title, LocalDate loanDate) {
+        Book book = Book.builder().id(id).title(title).author("Author").isbn("isbn-" + id).build();
+        return Loan.builder()
+                .id(id)
+                .customer(customer)
+                .customerEmail(email)
+                .book(book)
+                .loanDate(loanDate)
+                .build();
+    }
+}
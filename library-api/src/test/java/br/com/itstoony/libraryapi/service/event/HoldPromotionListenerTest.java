@@ -0,0 +1,60 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.HoldService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HoldPromotionListenerTest {
+
+    HoldService holdService;
+
+    LoanRepository loanRepository;
+
+    HoldPromotionListener listener;
+
+    @BeforeEach
+    public void setUp() {
+        holdService = Mockito.mock(HoldService.class);
+        loanRepository = Mockito.mock(LoanRepository.class);
+        listener = new HoldPromotionListener(holdService, loanRepository);
+    }
+
+    @Test
+    @DisplayName("Should promote the next holder of a returned book")
+    public void promoteTest() {
+        // execution
+        listener.onLoanEvents(List.of(returned(1L)));
+
+        // verification
+        verify(holdService).promoteNext(1L);
+    }
+
+    @Test
+    @DisplayName("Should not promote the next holder of a book that is on loan again")
+    public void loanedAgainTest() {
+        // scenery
+        when(loanRepository.existsByBookAndNotReturned(any())).thenReturn(true);
+
+        // execution
+        listener.onLoanEvents(List.of(returned(1L)));
+
+        // verification
+        verify(holdService, never()).promoteNext(anyLong());
+    }
+
+    private static LoanReturnedEvent returned(Long bookId) {
+        return new LoanReturnedEvent(1L, bookId, "9780134685991", "Fulano", Instant.now());
+    }
+}
@@ -0,0 +1,134 @@
+package br.com.itstoony.libraryapi.service.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanEventDispatcherTest {
+
+    @Test
+    @DisplayName("Should deliver consecutive events to the listeners in batches")
+    public void batchDeliveryTest() {
+        // scenery
+        RecordingListener listener = new RecordingListener();
+        List<Runnable> worker = new ArrayList<>();
+        LoanEventDispatcher dispatcher = dispatcher(listener, worker::add, 10, 2, 0);
+
+        // execution
+        dispatcher.onLoanEvent(created(1L));
+        dispatcher.onLoanEvent(created(2L));
+        dispatcher.onLoanEvent(returned(1L));
+        worker.forEach(Runnable::run);
+
+        // verification
+        assertThat(worker).hasSize(1);
+        assertThat(listener.batches).hasSize(2);
+        assertThat(listener.batches.get(0)).extracting(LoanEvent::loanId).containsExactly(1L, 2L);
+        assertThat(listener.batches.get(1).get(0)).isInstanceOf(LoanReturnedEvent.class);
+        assertThat(dispatcher.pendingEvents()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold the publishing thread while the queue is full, and deliver in order from the worker")
+    public void fullQueueBackpressureTest() throws Exception {
+        // scenery
+        RecordingListener listener = new RecordingListener();
+        List<Runnable> worker = new CopyOnWriteArrayList<>();
+        LoanEventDispatcher dispatcher = dispatcher(listener, worker::add, 1, 10, 5_000);
+        dispatcher.onLoanEvent(created(1L));
+
+        // execution
+        Thread publisher = new Thread(() -> dispatcher.onLoanEvent(created(2L)));
+        publisher.start();
+        while (publisher.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        List<List<LoanEvent>> whileFull = List.copyOf(listener.batches);
+        worker.remove(0).run();
+        publisher.join(5_000);
+        while (!worker.isEmpty()) {
+            worker.remove(0).run();
+        }
+
+        // verification
+        assertThat(whileFull).isEmpty();
+        assertThat(listener.batches).flatExtracting(batch -> batch.stream().map(LoanEvent::loanId).toList())
+                .containsExactly(1L, 2L);
+        assertThat(dispatcher.pendingEvents()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop and count an event once the queue stayed full for the longest wait")
+    public void fullQueueDropTest() {
+        // scenery
+        RecordingListener listener = new RecordingListener();
+        List<Runnable> worker = new ArrayList<>();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("listener", listener));
+        LoanEventDispatcher dispatcher = new LoanEventDispatcher(
+                beanFactory.getBeanProvider(LoanEventListener.class), worker::add, 1, 10, 0, 10, registry);
+        dispatcher.onLoanEvent(created(1L));
+
+        // execution
+        dispatcher.onLoanEvent(created(2L));
+        worker.forEach(Runnable::run);
+
+        // verification
+        assertThat(listener.batches).flatExtracting(batch -> batch.stream().map(LoanEvent::loanId).toList())
+                .containsExactly(1L);
+        assertThat(registry.get("library.events.loan.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep delivering to the other listeners when one of them fails")
+    public void failingListenerTest() {
+        // scenery
+        RecordingListener listener = new RecordingListener();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of(
+                "failing", (LoanEventListener) events -> { throw new IllegalStateException("boom"); },
+                "recording", listener));
+        LoanEventDispatcher dispatcher = new LoanEventDispatcher(
+                beanFactory.getBeanProvider(LoanEventListener.class), Runnable::run, 10, 10, 0, 0, new SimpleMeterRegistry());
+
+        // execution
+        dispatcher.onLoanEvent(created(1L));
+
+        // verification
+        assertThat(listener.batches).hasSize(1);
+    }
+
+    private static LoanEventDispatcher dispatcher(LoanEventListener listener, Executor executor, int capacity, int batchSize,
+                                                  long maxWaitMillis) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("listener", listener));
+        return new LoanEventDispatcher(beanFactory.getBeanProvider(LoanEventListener.class), executor, capacity, batchSize,
+                0, maxWaitMillis, new SimpleMeterRegistry());
+    }
+
+    private static LoanCreatedEvent created(Long id) {
+        return new LoanCreatedEvent(id, 1L, "123", "Fulano", Instant.now());
+    }
+
+    private static LoanReturnedEvent returned(Long id) {
+        return new LoanReturnedEvent(id, 1L, "123", "Fulano", Instant.now());
+    }
+
+    private static class RecordingListener implements LoanEventListener {
+
+        private final List<List<LoanEvent>> batches = new ArrayList<>();
+
+        @Override
+        public void onLoanEvents(List<LoanEvent> events) {
+            batches.add(events);
+        }
+    }
+}
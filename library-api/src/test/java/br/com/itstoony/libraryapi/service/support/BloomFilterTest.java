@@ -0,0 +1,54 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should hold every value added and keep false positives near the configured rate")
+    public void falsePositiveRateTest() {
+        // scenery
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+
+        // execution
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(9_780_000_000_000L + i);
+        }
+
+        // verification
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(9_780_000_000_000L + i)).isTrue();
+            if (filter.mightContain(9_790_000_000_000L + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.expectedFpp()).isBetween(0.005, 0.02);
+        assertThat(filter.sizeInBytes()).isEqualTo(filter.bitSize() / 8);
+    }
+
+    @Test
+    @DisplayName("Should tell if a value was already possibly present")
+    public void putTest() {
+        // scenery
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+
+        // execution / verification
+        assertThat(filter.mightContain(9780134685991L)).isFalse();
+        assertThat(filter.put(9780134685991L)).isTrue();
+        assertThat(filter.put(9780134685991L)).isFalse();
+        assertThat(filter.mightContain(9780134685991L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid sizes")
+    public void invalidSizeTest() {
+        assertThat(catchThrowable(() -> BloomFilter.create(0, 0.01))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> BloomFilter.create(100, 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
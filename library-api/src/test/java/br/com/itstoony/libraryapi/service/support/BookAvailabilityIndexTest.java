@@ -0,0 +1,91 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import br.com.itstoony.libraryapi.model.repository.LoanRepository;
+import br.com.itstoony.libraryapi.service.event.BookCreatedEvent;
+import br.com.itstoony.libraryapi.service.event.BookDeletedEvent;
+import br.com.itstoony.libraryapi.service.event.LoanReturnedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class BookAvailabilityIndexTest {
+
+    BookRepository bookRepository;
+
+    LoanRepository loanRepository;
+
+    BookAvailabilityIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        loanRepository = Mockito.mock(LoanRepository.class);
+        index = new BookAvailabilityIndex(bookRepository, loanRepository, new SimpleMeterRegistry());
+
+        Mockito.when(bookRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        Mockito.when(bookRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(List.of(2L, 4L));
+    }
+
+    @Test
+    @DisplayName("Should page the available and the loaned books once loaded")
+    public void pageTest() {
+        // scenery
+        assertThat(index.isLoaded()).isFalse();
+
+        // execution
+        index.afterSingletonsInstantiated();
+
+        // verification
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.page(true, 0, 2)).isEqualTo(new BookAvailabilityIndex.IdPage(List.of(1L, 3L), 3));
+        assertThat(index.page(true, 2, 2)).isEqualTo(new BookAvailabilityIndex.IdPage(List.of(5L), 3));
+        assertThat(index.page(false, 0, 10)).isEqualTo(new BookAvailabilityIndex.IdPage(List.of(2L, 4L), 2));
+    }
+
+    @Test
+    @DisplayName("Should mark a book as loaned only once until it is returned")
+    public void markLoanedTest() {
+        // scenery
+        index.afterSingletonsInstantiated();
+
+        // execution
+        boolean first = index.markLoaned(1L);
+        boolean second = index.markLoaned(1L);
+        index.onLoanReturned(new LoanReturnedEvent(10L, 1L, "9780134685991", "Fulano", Instant.now()));
+
+        // verification
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(index.isLoaned(1L)).isFalse();
+        assertThat(index.markLoaned(1L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should follow created and deleted books")
+    public void bookEventsTest() {
+        // scenery
+        index.afterSingletonsInstantiated();
+
+        // execution
+        index.onBookEvent(new BookCreatedEvent(6L, "9780134685991", "As aventuras", "Arthur", Instant.now()));
+        index.onBookEvent(new BookDeletedEvent(4L, "9788535902778", Instant.now()));
+
+        // verification
+        assertThat(index.page(true, 0, 10).ids()).containsExactly(1L, 3L, 5L, 6L);
+        assertThat(index.isLoaned(4L)).isFalse();
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import br.com.itstoony.libraryapi.api.model.entity.Book;
+import br.com.itstoony.libraryapi.api.model.entity.Hold;
+import br.com.itstoony.libraryapi.model.repository.HoldRepository;
+import br.com.itstoony.libraryapi.service.support.HoldQueues.Holder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HoldQueuesTest {
+
+    HoldRepository repository;
+
+    HoldQueues queues;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(HoldRepository.class);
+        queues = new HoldQueues(repository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should load the queues in hold order")
+    public void loadTest() {
+        // scenery
+        Book book = Book.builder().id(1L).build();
+        Book other = Book.builder().id(2L).build();
+        Mockito.when(repository.findAllByOrderByIdAsc()).thenReturn(List.of(
+                Hold.builder().id(1L).book(book).customer("Fulano").promotedAt(LocalDateTime.now()).build(),
+                Hold.builder().id(2L).book(other).customer("Fulano").build(),
+                Hold.builder().id(3L).book(book).customer("Ciclano").build()));
+
+        // execution
+        queues.afterSingletonsInstantiated();
+
+        // verification
+        assertThat(queues.size()).isEqualTo(3);
+        assertThat(queues.head(1L).map(Holder::customer)).contains("Fulano");
+        assertThat(queues.head(1L).map(Holder::isPromoted)).contains(true);
+        assertThat(queues.position(1L, 3L)).isEqualTo(2);
+        assertThat(queues.position(2L, 2L)).isEqualTo(1);
+        assertThat(queues.find(1L, "Ciclano").map(Holder::holdId)).contains(3L);
+    }
+
+    @Test
+    @DisplayName("Should keep hold order whatever the order holds are added in")
+    public void addInOrderTest() {
+        // execution
+        queues.add(1L, new Holder(5L, "Ciclano", null));
+        queues.add(1L, new Holder(4L, "Fulano", null));
+        queues.add(1L, new Holder(6L, "Beltrano", null));
+
+        // verification
+        assertThat(queues.position(1L, 4L)).isEqualTo(1);
+        assertThat(queues.position(1L, 5L)).isEqualTo(2);
+        assertThat(queues.position(1L, 6L)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should promote the head only once and forget empty queues")
+    public void promoteAndRemoveTest() {
+        // scenery
+        queues.add(1L, new Holder(1L, "Fulano", null));
+        queues.add(1L, new Holder(2L, "Ciclano", null));
+
+        // execution
+        boolean promoted = queues.promoteHead(1L, LocalDateTime.now()).isPresent();
+        boolean promotedAgain = queues.promoteHead(1L, LocalDateTime.now()).isPresent();
+        queues.demote(1L, 1L);
+        boolean promotedAfterDemote = queues.promoteHead(1L, LocalDateTime.now()).isPresent();
+        queues.remove(1L, 1L);
+        queues.remove(1L, 2L);
+
+        // verification
+        assertThat(promoted).isTrue();
+        assertThat(promotedAgain).isFalse();
+        assertThat(promotedAfterDemote).isTrue();
+        assertThat(queues.head(1L)).isEmpty();
+        assertThat(queues.size()).isZero();
+        assertThat(queues.promoteHead(1L, LocalDateTime.now())).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import br.com.itstoony.libraryapi.model.repository.BookIsbnKey;
+import br.com.itstoony.libraryapi.model.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+public class IsbnBloomFilterTest {
+
+    BookRepository repository;
+
+    IsbnBloomFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(BookRepository.class);
+        filter = new IsbnBloomFilter(repository, new SimpleMeterRegistry(), 1000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should let every isbn through until it is loaded")
+    public void notLoadedTest() {
+        assertThat(filter.mightContain(9780134685991L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should drop the isbns of deleted books when rebuilt")
+    public void rebuildTest() {
+        // scenery
+        when(repository.findIsbnKeysAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new BookIsbnKey(1L, 9780134685991L),
+                new BookIsbnKey(2L, 9788535902778L)));
+        filter.rebuild();
+        assertThat(filter.mightContain(9780134685991L)).isTrue();
+
+        // execution
+        when(repository.findIsbnKeysAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new BookIsbnKey(2L, 9788535902778L)));
+        filter.rebuild();
+
+        // verification
+        assertThat(filter.mightContain(9780134685991L)).isFalse();
+        assertThat(filter.mightContain(9788535902778L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep isbns added while their books were not committed yet")
+    public void addedBeforeCommitTest() {
+        // scenery
+        filter.rebuild();
+
+        // execution
+        filter.add(9790000000001L);
+        filter.rebuild();
+        filter.rebuild();
+
+        // verification
+        assertThat(filter.mightContain(9790000000001L)).isTrue();
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnTest {
+
+    @Test
+    @DisplayName("Should give the same key to every form of an isbn")
+    public void sameKeyTest() {
+        assertThat(Isbn.toKey("978-0-13-468599-1")).isEqualTo(9780134685991L);
+        assertThat(Isbn.toKey("9780134685991")).isEqualTo(9780134685991L);
+        assertThat(Isbn.toKey("0-13-468599-7")).isEqualTo(9780134685991L);
+        assertThat(Isbn.toKey("0134685997")).isEqualTo(9780134685991L);
+        assertThat(Isbn.toKey("978 85 359 0277 8")).isEqualTo(9788535902778L);
+    }
+
+    @Test
+    @DisplayName("Should convert an ISBN-10 with an X check digit")
+    public void isbn10WithXTest() {
+        assertThat(Isbn.toKey("0-8044-2957-X")).isEqualTo(9780804429573L);
+        assertThat(Isbn.normalize("080442957x")).isEqualTo("9780804429573");
+    }
+
+    @Test
+    @DisplayName("Should not accept wrong check digits, lengths or characters")
+    public void invalidTest() {
+        assertThat(Isbn.toKey("978-0-13-468599-2")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("0-13-468599-X")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("9771234567898")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("97801346859910")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("12345X7890")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("123")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey("")).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.toKey(null)).isEqualTo(Isbn.INVALID);
+        assertThat(Isbn.normalize("123")).isNull();
+        assertThat(Isbn.isValid("9790000000001")).isTrue();
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MessageTemplateTest {
+
+    @Test
+    @DisplayName("Should replace every placeholder with its value")
+    public void renderTest() {
+        // scenery
+        MessageTemplate template = MessageTemplate.compile("Hello {customer}, you have {count} late loans. Bye {customer}");
+
+        // execution
+        String text = template.render(Map.of("customer", "Fulano", "count", 2));
+
+        // verification
+        assertThat(text).isEqualTo("Hello Fulano, you have 2 late loans. Bye Fulano");
+    }
+
+    @Test
+    @DisplayName("Should render missing values empty and keep text without placeholders")
+    public void missingValuesTest() {
+        // scenery
+        MessageTemplate template = MessageTemplate.compile("{greeting}Late loan {");
+
+        // execution
+        String text = template.render(Map.of());
+
+        // verification
+        assertThat(text).isEqualTo("Late loan {");
+        assertThat(MessageTemplate.compile("no placeholders").render(Map.of())).isEqualTo("no placeholders");
+    }
+}
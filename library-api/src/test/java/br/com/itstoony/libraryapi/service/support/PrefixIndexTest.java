@@ -0,0 +1,65 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefixIndexTest {
+
+    @Test
+    @DisplayName("Should find texts by the start of any word ignoring case and accents")
+    public void searchByWordPrefixTest() {
+        // scenery
+        PrefixIndex<String> index = new PrefixIndex<>();
+        index.put(1L, "senhor", List.of("O Senhor dos Anéis", "J. R. R. Tolkien"));
+        index.put(2L, "sertoes", List.of("Os Sertões", "Euclides da Cunha"));
+
+        // execution / verification
+        assertThat(index.search("se", 10)).containsExactlyInAnyOrder("senhor", "sertoes");
+        assertThat(index.search("SENHOR D", 10)).containsExactly("senhor");
+        assertThat(index.search("aneis", 10)).containsExactly("senhor");
+        assertThat(index.search("tolk", 10)).containsExactly("senhor");
+        assertThat(index.search("sertões", 10)).containsExactly("sertoes");
+        assertThat(index.search("xyz", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return each value once and at most the limit")
+    public void limitTest() {
+        // scenery
+        PrefixIndex<Long> index = new PrefixIndex<>();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, id, List.of("Aventuras aventureiras " + id));
+        }
+
+        // execution
+        List<Long> found = index.search("aventur", 3);
+
+        // verification
+        assertThat(found).hasSize(3).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Should drop the old words on update and everything on remove")
+    public void updateAndRemoveTest() {
+        // scenery
+        PrefixIndex<String> index = new PrefixIndex<>();
+        index.put(1L, "v1", List.of("As aventuras"));
+
+        // execution
+        index.put(1L, "v2", List.of("Outras histórias"));
+
+        // verification
+        assertThat(index.search("aventuras", 10)).isEmpty();
+        assertThat(index.search("hist", 10)).containsExactly("v2");
+
+        index.remove(1L);
+        assertThat(index.search("hist", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+        assertThat(index.keys()).isZero();
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ReminderScheduleTest {
+
+    private static final LocalDate LOAN_DATE = LocalDate.of(2023, 1, 1);
+
+    @Test
+    @DisplayName("Should notify on the configured days of lateness and then weekly")
+    public void reminderDatesTest() {
+        // scenery
+        ReminderSchedule schedule = new ReminderSchedule(4, new int[]{ 1, 3 }, 7);
+
+        // execution / verification
+        assertThat(schedule.reminderDate(LOAN_DATE, 0)).isEqualTo(LocalDate.of(2023, 1, 5));
+        assertThat(schedule.reminderDate(LOAN_DATE, 1)).isEqualTo(LocalDate.of(2023, 1, 7));
+        assertThat(schedule.reminderDate(LOAN_DATE, 2)).isEqualTo(LocalDate.of(2023, 1, 14));
+        assertThat(schedule.reminderDate(LOAN_DATE, 3)).isEqualTo(LocalDate.of(2023, 1, 21));
+    }
+
+    @Test
+    @DisplayName("Should stop notifying after the listed days when there is no repetition")
+    public void noRepetitionTest() {
+        // scenery
+        ReminderSchedule schedule = new ReminderSchedule(4, new int[]{ 1 }, 0);
+
+        // execution / verification
+        assertThat(schedule.reminderDate(LOAN_DATE, 0)).isEqualTo(LocalDate.of(2023, 1, 5));
+        assertThat(schedule.reminderDate(LOAN_DATE, 1)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject reminder days out of order")
+    public void invalidDaysTest() {
+        // execution
+        Throwable ex = catchThrowable(() -> new ReminderSchedule(4, new int[]{ 3, 1 }, 7));
+
+        // verification
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+}
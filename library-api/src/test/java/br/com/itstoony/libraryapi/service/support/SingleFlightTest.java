@@ -0,0 +1,125 @@
+package br.com.itstoony.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Should run the loader once for concurrent calls with the same key")
+    public void collapseConcurrentCallsTest() throws Exception {
+        // scenery
+        SingleFlight<String, String> flight = new SingleFlight<>(value -> value + "-copy");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // execution
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute("key", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "value";
+        })));
+        loading.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> flight.execute("key", () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        while (flight.collapsed() < 3) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // verification
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        for (Future<String> follower : results.subList(1, results.size())) {
+            // a copy of the copy taken by the caller that loaded it
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("value-copy-copy");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.executions()).isEqualTo(1);
+        assertThat(flight.collapsed()).isEqualTo(3);
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should not hand the waiting callers the changes made by the caller that loaded the value")
+    public void leaderChangesTest() throws Exception {
+        // scenery
+        SingleFlight<String, StringBuilder> flight = new SingleFlight<>(StringBuilder::new);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Future<StringBuilder>> follower = new ArrayList<>();
+
+        // execution
+        StringBuilder loaded = flight.execute("key", () -> {
+            follower.add(executor.submit(() -> flight.execute("key", () -> new StringBuilder("other"))));
+            while (flight.collapsed() < 1) {
+                Thread.onSpinWait();
+            }
+            return new StringBuilder("value");
+        });
+        loaded.append("-edited");
+
+        // verification
+        assertThat(follower.get(0).get(5, TimeUnit.SECONDS)).hasToString("value");
+        assertThat(loaded).hasToString("value-edited");
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run the loader again once the previous call has finished")
+    public void sequentialCallsTest() {
+        // scenery
+        SingleFlight<String, Integer> flight = new SingleFlight<>(value -> value);
+        AtomicInteger loads = new AtomicInteger();
+
+        // execution
+        flight.execute("key", loads::incrementAndGet);
+        Integer second = flight.execute("key", loads::incrementAndGet);
+
+        // verification
+        assertThat(second).isEqualTo(2);
+        assertThat(flight.collapsed()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should propagate the loader exception to the caller")
+    public void loaderExceptionTest() {
+        // scenery
+        SingleFlight<String, String> flight = new SingleFlight<>(value -> value);
+
+        // execution
+        Throwable ex = catchThrowable(() -> flight.execute("key", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        // verification
+        assertThat(ex).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+        assertThat(flight.execute("key", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class SnapshotEndpointTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Should not export the catalog unless the snapshot endpoint is turned on")
+    public void disabledByDefaultTest() throws Exception {
+        // execution and verification
+        mvc.perform(post("/actuator/snapshot"))
+                .andExpect(status().isNotFound());
+    }
+}
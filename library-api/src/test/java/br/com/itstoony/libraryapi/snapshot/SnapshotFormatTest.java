@@ -0,0 +1,139 @@
+package br.com.itstoony.libraryapi.snapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static br.com.itstoony.libraryapi.snapshot.SnapshotTable.Type.*;
+import static br.com.itstoony.libraryapi.snapshot.SnapshotTable.column;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SnapshotFormatTest {
+
+    static final SnapshotTable BOOK = new SnapshotTable("book", List.of(
+            column("id", LONG), column("title", STRING), column("isbn_key", LONG)));
+
+    static final SnapshotTable LOAN = new SnapshotTable("loan", List.of(
+            column("id", LONG), column("loan_date", DATE), column("returned", BOOLEAN),
+            column("last_notified_at", TIMESTAMP), column("notification_level", INT)));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read back every row written, in blocks")
+    public void roundTripTest() throws IOException {
+        // scenery
+        Path file = directory.resolve("catalog.snap");
+        Object[] book1 = { 1L, "As aventuras", 9780134685991L };
+        Object[] book2 = { 2L, "Memórias póstumas", null };
+        Object[] book3 = { 3L, "", 9788535914849L };
+        Object[] loan = { 10L, LocalDate.of(2023, 1, 2), Boolean.FALSE, LocalDateTime.of(2023, 1, 5, 10, 30, 0, 123_000_000), 2 };
+
+        try (SnapshotWriter writer = new SnapshotWriter(file, List.of(BOOK, LOAN), 2)) {
+            writer.write(BOOK, book1);
+            writer.write(BOOK, book2);
+            writer.write(BOOK, book3);
+            writer.write(LOAN, loan);
+            writer.finish();
+        }
+
+        // execution
+        List<SnapshotReader.Block> blocks = new ArrayList<>();
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            SnapshotReader.Block block;
+            while ((block = reader.next()) != null) {
+                blocks.add(block);
+            }
+
+            // verification
+            assertThat(reader.tables()).containsExactly(BOOK, LOAN);
+            assertThat(reader.rows(BOOK)).isEqualTo(3);
+            assertThat(reader.rows(LOAN)).isEqualTo(1);
+        }
+        assertThat(blocks).hasSize(3);
+        assertThat(blocks.get(0).rows()).containsExactly(book1, book2);
+        assertThat(blocks.get(1).rows()).containsExactly(book3);
+        assertThat(blocks.get(2).table()).isEqualTo(LOAN);
+        assertThat(blocks.get(2).rows()).containsExactly(loan);
+    }
+
+    @Test
+    @DisplayName("Should refuse a snapshot of another version")
+    public void versionTest() throws IOException {
+        // scenery
+        Path file = directory.resolve("catalog.snap");
+        try (SnapshotWriter writer = new SnapshotWriter(file, List.of(BOOK), 10)) {
+            writer.finish();
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(Integer.BYTES);
+            raw.writeShort(SnapshotFormat.VERSION + 1);
+        }
+
+        // execution
+        Throwable exception = catchThrowable(() -> new SnapshotReader(file).close());
+
+        // verification
+        assertThat(exception).isInstanceOf(IOException.class).hasMessageContaining("version");
+    }
+
+    @Test
+    @DisplayName("Should refuse a block that doesn't match its checksum")
+    public void corruptedBlockTest() throws IOException {
+        // scenery
+        Path file = directory.resolve("catalog.snap");
+        try (SnapshotWriter writer = new SnapshotWriter(file, List.of(BOOK), 10)) {
+            writer.write(BOOK, new Object[]{ 1L, "As aventuras", 9780134685991L });
+            writer.finish();
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // a byte of the title: before the end marker with its row count, and the isbn key
+            long position = raw.length() - 1 - Long.BYTES - Long.BYTES - 2;
+            raw.seek(position);
+            int value = raw.read();
+            raw.seek(position);
+            raw.write(value ^ 0xFF);
+        }
+
+        // execution
+        Throwable exception;
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            exception = catchThrowable(reader::next);
+        }
+
+        // verification
+        assertThat(exception).isInstanceOf(IOException.class).hasMessageContaining("checksum");
+    }
+
+    @Test
+    @DisplayName("Should refuse a snapshot that was not completely written")
+    public void incompleteTest() throws IOException {
+        // scenery
+        Path file = directory.resolve("catalog.snap");
+        try (SnapshotWriter writer = new SnapshotWriter(file, List.of(BOOK), 1)) {
+            writer.write(BOOK, new Object[]{ 1L, "As aventuras", 9780134685991L });
+            writer.write(BOOK, new Object[]{ 2L, "Dom Casmurro", 9788535914849L });
+        }
+
+        // execution
+        Throwable exception;
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            assertThat(reader.next().rows()).hasSize(1);
+            assertThat(reader.next().rows()).hasSize(1);
+            exception = catchThrowable(reader::next);
+        }
+
+        // verification
+        assertThat(exception).isInstanceOf(IOException.class).hasMessageContaining("incomplete");
+    }
+}